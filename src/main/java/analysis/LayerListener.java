@@ -0,0 +1,24 @@
+package analysis;
+
+/**
+ * Receives the layers of a state-space analysis as they are completed. Reports are made on the thread running
+ * the analysis, so implementations should return quickly.
+ */
+@FunctionalInterface
+public interface LayerListener {
+
+    /**
+     * A listener that ignores all reports.
+     */
+    LayerListener NONE = (distance, boards, reached) -> {
+    };
+
+    /**
+     * Called after all boards at a distance from the goal have been found.
+     *
+     * @param distance the distance of the layer, in moves to the goal
+     * @param boards   the number of boards in the layer
+     * @param reached  the number of boards found so far, including this layer
+     */
+    void onLayer(int distance, long boards, long reached);
+}
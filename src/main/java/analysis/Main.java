@@ -0,0 +1,49 @@
+package analysis;
+
+import puzzle.PackedBoard;
+import puzzle.PuzzleState;
+
+import java.util.Arrays;
+
+/**
+ * Prints the statistics of the state space of a puzzle.
+ * <p>
+ * Usage: {@code [<start> <goal>] [hardest]}, for example {@code KBB/RR. BB./RRK 5}. The boards are written as
+ * described in {@link PackedBoard}; without them, the start and goal of {@link PuzzleState} are analysed.
+ * The layers are printed while the analysis runs.
+ */
+public class Main {
+
+    public static void main(String[] args) {
+        PackedBoard codec;
+        long start;
+        long goal;
+        if (args.length >= 2) {
+            codec = PackedBoard.forText(args[0]);
+            start = codec.parse(args[0]);
+            goal = codec.parse(args[1]);
+        } else {
+            codec = PackedBoard.of(2, 3);
+            start = codec.pack(new PuzzleState());
+            goal = codec.parse("BB./RRK");
+        }
+        int hardest = args.length == 1 || args.length == 3 ? Integer.parseInt(args[args.length - 1]) : 10;
+
+        System.out.println("distance boards reached");
+        StateSpaceReport report = new StateSpaceAnalyzer(codec, goal).analyze(start, hardest,
+                (distance, boards, reached) -> System.out.printf("%8d %6d %7d%n", distance, boards, reached));
+
+        System.out.println("Arrangements: " + report.getArrangements());
+        System.out.println("Reachable boards: " + report.getReachable());
+        System.out.println("Connected components: " + report.getComponents()
+                + " (largest " + report.getLargestComponent() + ")");
+        System.out.println("Diameter: " + (report.isDiameterExact() ? "" : "at least ") + report.getDiameter());
+        System.out.println("Start distance: " + report.getStartDistance());
+        System.out.printf("Branching factors: %s (average %.2f)%n",
+                Arrays.toString(report.getBranchingCounts()), report.getAverageBranching());
+        System.out.println("Hardest starts (" + report.getMaxDistance() + " moves):");
+        for (long board : report.getHardestStarts()) {
+            System.out.println("  " + codec.format(board));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package analysis;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Explores the complete state graph of a board size and piece set and collects the statistics of
+ * {@link StateSpaceReport}.
+ * <p>
+ * The graph is traversed layer by layer from the goal, each layer expanded in parallel. Since every move can be
+ * undone, the layer of a board is its optimal distance to the goal, and the boards found are exactly those that
+ * can reach the goal. Boards are identified by their {@link StateIndexer} rank, and a bit set over all ranks
+ * serves as the visited set, so besides the current and next layer the traversal needs one bit per arrangement.
+ * The remaining arrangements are then swept component by component to count the components of the whole graph.
+ * <p>
+ * The diameter is found with a breadth-first search from every board when the graph has at most
+ * {@link #EXACT_DIAMETER_LIMIT} boards. Larger graphs get the lower bound of a search from one of the
+ * hardest boards, whose eccentricity is at least that of the goal.
+ */
+public class StateSpaceAnalyzer {
+
+    /**
+     * The largest number of boards for which the diameter is computed exactly.
+     */
+    public static final int EXACT_DIAMETER_LIMIT = 1 << 14;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final PackedBoard codec;
+    private final long goal;
+    private final StateIndexer indexer;
+
+    /**
+     * Constructs a {@code StateSpaceAnalyzer} for the specified goal. The board size and the pieces are those
+     * of the goal.
+     *
+     * @param codec the codec of the boards
+     * @param goal  the packed goal board
+     * @throws IllegalArgumentException if there are too many arrangements to hold the visited set in memory
+     */
+    public StateSpaceAnalyzer(PackedBoard codec, long goal) {
+        this.codec = codec;
+        this.goal = goal;
+        this.indexer = StateIndexer.forBoard(codec, goal);
+        if (indexer.size() > 64L * (Integer.MAX_VALUE - 8)) {
+            throw new IllegalArgumentException("Too many boards: " + indexer.size());
+        }
+    }
+
+    /**
+     * Analyses the state space, reporting every layer to the listener as soon as it is complete.
+     *
+     * @param start      the packed start board, with the same pieces as the goal
+     * @param maxHardest the maximum number of hardest boards to report
+     * @param listener   the listener receiving the layers
+     * @return the statistics of the state space
+     */
+    public StateSpaceReport analyze(long start, int maxHardest, LayerListener listener) {
+        long startTime = System.currentTimeMillis();
+        long[] visited = new long[(int) ((indexer.size() + 63) / 64)];
+        //The bits past the last rank are marked visited so that the component sweep skips them.
+        if (indexer.size() % 64 != 0) {
+            visited[visited.length - 1] = -1L << indexer.size();
+        }
+        long startRank = indexer.rank(start);
+        AtomicLongArray branching = new AtomicLongArray(codec.squares());
+        List<Long> distanceCounts = new ArrayList<>();
+        List<long[]> layers = new ArrayList<>(); //Kept for the exact diameter while the graph is small enough
+        int startDistance = -1;
+        long reached = 0;
+        long[] hardest = {};
+
+        long goalRank = indexer.rank(goal);
+        claim(visited, goalRank);
+        long[] frontier = {goalRank};
+        for (int distance = 0; frontier.length > 0; distance++) {
+            reached += frontier.length;
+            distanceCounts.add((long) frontier.length);
+            if (startDistance < 0 && isSet(visited, startRank)) {
+                startDistance = distance;
+            }
+            listener.onLayer(distance, frontier.length, reached);
+            if (reached <= EXACT_DIAMETER_LIMIT) {
+                layers.add(frontier);
+            }
+            hardest = frontier;
+            frontier = expand(frontier, visited, branching);
+        }
+        Logger.info("Explored {} of {} boards in {} layers in {} ms", reached, indexer.size(),
+                distanceCounts.size(), System.currentTimeMillis() - startTime);
+
+        int components = 1;
+        long largestComponent = reached;
+        for (int word = 0; word < visited.length; word++) {
+            for (long free = ~visited[word]; free != 0; free = ~visited[word]) {
+                long rank = (long) word << 6 | Long.numberOfTrailingZeros(free);
+                claim(visited, rank);
+                long size = 0;
+                for (long[] layer = {rank}; layer.length > 0; layer = expand(layer, visited, null)) {
+                    size += layer.length;
+                }
+                components++;
+                largestComponent = Math.max(largestComponent, size);
+            }
+        }
+        Logger.info("Found {} components", components);
+
+        boolean diameterExact = reached <= EXACT_DIAMETER_LIMIT;
+        int diameter = diameterExact
+                ? exactDiameter(layers.stream().flatMapToLong(Arrays::stream).sorted().toArray())
+                : Math.max(distanceCounts.size() - 1, eccentricity(hardest[0]));
+        long[] branchingCounts = new long[branching.length()];
+        for (int n = 0; n < branchingCounts.length; n++) {
+            branchingCounts[n] = branching.get(n);
+        }
+        Logger.info("Analysed state space in {} ms", System.currentTimeMillis() - startTime);
+        return new StateSpaceReport(indexer.size(),
+                distanceCounts.stream().mapToLong(Long::longValue).toArray(),
+                branchingCounts,
+                startDistance,
+                Arrays.stream(hardest).limit(maxHardest).map(indexer::unrank).toArray(),
+                diameter,
+                diameterExact,
+                components,
+                largestComponent);
+    }
+
+    //Returns the ranks of the unvisited neighbours of a layer, marking them visited.
+    private long[] expand(long[] layer, long[] visited, AtomicLongArray branching) {
+        return Arrays.stream(layer).parallel().flatMap(rank -> {
+            long[] successors = new long[codec.squares()];
+            int count = codec.successors(indexer.unrank(rank), successors);
+            if (branching != null) {
+                branching.incrementAndGet(count);
+            }
+            LongStream.Builder next = LongStream.builder();
+            for (int i = 0; i < count; i++) {
+                long successor = indexer.rank(successors[i]);
+                if (claim(visited, successor)) {
+                    next.add(successor);
+                }
+            }
+            return next.build();
+        }).toArray();
+    }
+
+    //Number of layers after the first of a breadth-first search from a board.
+    private int eccentricity(long rank) {
+        long[] visited = new long[(int) ((indexer.size() + 63) / 64)];
+        claim(visited, rank);
+        int eccentricity = -1;
+        for (long[] layer = {rank}; layer.length > 0; layer = expand(layer, visited, null)) {
+            eccentricity++;
+        }
+        return eccentricity;
+    }
+
+    //Breadth-first search from every board over an adjacency list of the graph; boards holds the sorted ranks.
+    private int exactDiameter(long[] boards) {
+        int[] offsets = new int[boards.length + 1];
+        int[] targets = new int[boards.length * (codec.squares() - 1)];
+        long[] successors = new long[codec.squares()];
+        for (int i = 0; i < boards.length; i++) {
+            int count = codec.successors(indexer.unrank(boards[i]), successors);
+            offsets[i + 1] = offsets[i] + count;
+            for (int j = 0; j < count; j++) {
+                targets[offsets[i] + j] = Arrays.binarySearch(boards, indexer.rank(successors[j]));
+            }
+        }
+        return IntStream.range(0, boards.length).parallel().map(source -> {
+            int[] distances = new int[boards.length];
+            Arrays.fill(distances, -1);
+            int[] queue = new int[boards.length];
+            distances[source] = 0;
+            queue[0] = source;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int board = queue[head];
+                for (int k = offsets[board]; k < offsets[board + 1]; k++) {
+                    if (distances[targets[k]] < 0) {
+                        distances[targets[k]] = distances[board] + 1;
+                        queue[tail++] = targets[k];
+                    }
+                }
+            }
+            return distances[queue[tail - 1]];
+        }).max().orElse(0);
+    }
+
+    private static boolean isSet(long[] bits, long index) {
+        return (bits[(int) (index >>> 6)] & 1L << index) != 0;
+    }
+
+    //Marks a rank visited; returns false if it already was.
+    private static boolean claim(long[] bits, long index) {
+        long bit = 1L << index;
+        return ((long) LONGS.getAndBitwiseOr(bits, (int) (index >>> 6), bit) & bit) == 0;
+    }
+}
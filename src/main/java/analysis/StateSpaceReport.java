@@ -0,0 +1,163 @@
+package analysis;
+
+import java.util.Arrays;
+
+/**
+ * The statistics of the state space of a puzzle, as computed by {@link StateSpaceAnalyzer}.
+ * <p>
+ * All figures except the number of components refer to the boards that can reach the goal.
+ */
+public class StateSpaceReport {
+
+    private final long arrangements;
+    private final long[] distanceCounts;
+    private final long[] branchingCounts;
+    private final int startDistance;
+    private final long[] hardestStarts;
+    private final int diameter;
+    private final boolean diameterExact;
+    private final int components;
+    private final long largestComponent;
+
+    /**
+     * Constructs a {@code StateSpaceReport} with the specified values.
+     *
+     * @param arrangements     the number of arrangements of the pieces on the board
+     * @param distanceCounts   the number of boards at each distance from the goal
+     * @param branchingCounts  the number of boards with each number of legal moves
+     * @param startDistance    the distance of the start board from the goal, or -1 if it cannot reach the goal
+     * @param hardestStarts    packed boards at the largest distance from the goal
+     * @param diameter         the diameter of the graph, or a lower bound on it
+     * @param diameterExact    whether the diameter is exact
+     * @param components       the number of connected components of all arrangements
+     * @param largestComponent the number of boards in the largest component
+     */
+    public StateSpaceReport(long arrangements, long[] distanceCounts, long[] branchingCounts, int startDistance,
+                            long[] hardestStarts, int diameter, boolean diameterExact, int components,
+                            long largestComponent) {
+        this.arrangements = arrangements;
+        this.distanceCounts = distanceCounts.clone();
+        this.branchingCounts = branchingCounts.clone();
+        this.startDistance = startDistance;
+        this.hardestStarts = hardestStarts.clone();
+        this.diameter = diameter;
+        this.diameterExact = diameterExact;
+        this.components = components;
+        this.largestComponent = largestComponent;
+    }
+
+    /**
+     * Returns the number of arrangements of the pieces on the board, whether or not they can reach the goal.
+     *
+     * @return the number of arrangements
+     */
+    public long getArrangements() {
+        return arrangements;
+    }
+
+    /**
+     * Returns the number of boards that can reach the goal.
+     *
+     * @return the number of reachable boards
+     */
+    public long getReachable() {
+        return Arrays.stream(distanceCounts).sum();
+    }
+
+    /**
+     * Returns the distribution of optimal distances to the goal.
+     *
+     * @return an array whose element {@code d} is the number of boards {@code d} moves from the goal
+     */
+    public long[] getDistanceCounts() {
+        return distanceCounts.clone();
+    }
+
+    /**
+     * Returns the largest optimal distance to the goal.
+     *
+     * @return the number of moves needed from the hardest start boards
+     */
+    public int getMaxDistance() {
+        return distanceCounts.length - 1;
+    }
+
+    /**
+     * Returns the histogram of branching factors.
+     *
+     * @return an array whose element {@code n} is the number of boards with {@code n} legal moves
+     */
+    public long[] getBranchingCounts() {
+        return branchingCounts.clone();
+    }
+
+    /**
+     * Returns the average number of legal moves of the boards that can reach the goal.
+     *
+     * @return the average branching factor
+     */
+    public double getAverageBranching() {
+        long moves = 0;
+        for (int n = 0; n < branchingCounts.length; n++) {
+            moves += n * branchingCounts[n];
+        }
+        return (double) moves / getReachable();
+    }
+
+    /**
+     * Returns the optimal distance of the start board to the goal.
+     *
+     * @return the number of moves, or -1 if the start board cannot reach the goal
+     */
+    public int getStartDistance() {
+        return startDistance;
+    }
+
+    /**
+     * Returns boards at the largest distance from the goal. At most the number of boards requested from the
+     * analyzer are returned.
+     *
+     * @return the packed boards
+     */
+    public long[] getHardestStarts() {
+        return hardestStarts.clone();
+    }
+
+    /**
+     * Returns the diameter of the graph of boards that can reach the goal: the largest optimal distance between
+     * any two of them. For large graphs this is a lower bound; see {@link #isDiameterExact()}.
+     *
+     * @return the diameter, in moves
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * Checks if {@link #getDiameter()} is exact rather than a lower bound.
+     *
+     * @return {@code true} if the diameter is exact; {@code false} otherwise
+     */
+    public boolean isDiameterExact() {
+        return diameterExact;
+    }
+
+    /**
+     * Returns the number of connected components of the graph of all arrangements of the pieces.
+     * Moves can be undone, so two boards can reach each other exactly if they are in the same component.
+     *
+     * @return the number of components
+     */
+    public int getComponents() {
+        return components;
+    }
+
+    /**
+     * Returns the number of boards in the largest connected component.
+     *
+     * @return the size of the largest component
+     */
+    public long getLargestComponent() {
+        return largestComponent;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains classes for analysing the state space of a puzzle.
+ */
+package analysis;
@@ -2,8 +2,15 @@ package controller;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import leaderboard.ResultStore;
+import leaderboard.SolveRecord;
 import org.tinylog.Logger;
 
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 public class EndingScreenController {
 
     @FXML
@@ -11,11 +18,71 @@ public class EndingScreenController {
 
     private String playerName;
 
+    // Opened on first use and kept open, so the log is indexed once per run rather than on every solve
+    private static ResultStore sharedStore;
+
+    private ResultStore resultStore; // Set by tests and benchmarks; the shared store otherwise
+
+    // Results are saved on this thread, in order, so the FX thread never waits for the disk
+    private static final ExecutorService SAVER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "result-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    private static synchronized ResultStore sharedStore() throws IOException {
+        if (sharedStore == null) {
+            sharedStore = ResultStore.open(ResultStore.DEFAULT_PATH);
+        }
+        return sharedStore;
+    }
+
+    //Waits for the results still being saved and closes the shared store; called when the application stops.
+    public static void closeSharedStore() {
+        SAVER.shutdown();
+        try {
+            if (!SAVER.awaitTermination(10, TimeUnit.SECONDS)) {
+                Logger.warn("Gave up waiting for results to be saved");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (EndingScreenController.class) {
+            if (sharedStore != null) {
+                try {
+                    sharedStore.close();
+                } catch (IOException e) {
+                    Logger.error("Error closing the leaderboard", e);
+                }
+                sharedStore = null;
+            }
+        }
+    }
+
     public void setPlayerName(String playerName) {
         this.playerName = playerName;
         displayMessage();
     }
 
+    //Saves the result to the leaderboard in the background; closeSharedStore waits for it, so it is not lost on exit.
+    public void setResult(SolveRecord result) {
+        ResultStore store = resultStore;
+        SAVER.execute(() -> {
+            try {
+                (store != null ? store : sharedStore()).append(result);
+                Logger.info("Saved result: {}", result);
+            } catch (IOException e) {
+                Logger.error("Error saving result", e);
+            }
+        });
+        setPlayerName(result.getPlayerName());
+        congratsLabel.setText(congratsLabel.getText() + "\nMoves: " + result.getMoves());
+    }
+
     private void displayMessage() {
         congratsLabel.setText("Congratulations, " + playerName + "!\nYou have solved the puzzle.");
         Logger.info("Game is over, you solved the puzzle.");
@@ -0,0 +1,131 @@
+package controller;
+
+import javafx.fxml.FXMLLoader;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Loads the resources of the game in the background while the opening screen is shown.
+ * <p>
+ * The phases run in parallel on daemon threads: decoding the piece images, loading the game screen (after the
+ * images, since building the board shows them), and loading the ending screen. Nodes may be created off the JavaFX thread as long as they are not yet part of a shown scene, so
+ * the screens are fully built by the time the player clicks Start. The duration of every phase is logged and kept
+ * for {@link #getTimings()}. If a phase fails or has not finished, the resource is loaded on demand as before.
+ */
+class GameResources {
+
+    static final String GAME_SCREEN = "/puzzle_game.fxml";
+    static final String ENDING_SCREEN = "/ending_screen.fxml";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, task -> {
+        Thread thread = new Thread(task, "preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final CompletableFuture<Void> images;
+    private final CompletableFuture<FXMLLoader> gameScreen;
+    private final CompletableFuture<FXMLLoader> endingScreen;
+    private final AtomicBoolean gameScreenTaken = new AtomicBoolean();
+    private final AtomicBoolean endingScreenTaken = new AtomicBoolean();
+
+    private GameResources() {
+        images = time("piece images", () -> {
+            PieceImages.loadAll();
+            return null;
+        });
+        gameScreen = images.thenCompose(ignored -> time("game screen", () -> loadUnchecked(GAME_SCREEN)));
+        endingScreen = time("ending screen", () -> loadUnchecked(ENDING_SCREEN));
+        CompletableFuture.allOf(gameScreen, endingScreen).whenComplete((result, e) -> executor.shutdown());
+    }
+
+    /**
+     * Starts loading the resources in the background.
+     *
+     * @return the resources being loaded
+     */
+    static GameResources preload() {
+        return new GameResources();
+    }
+
+    static FXMLLoader load(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader(GameResources.class.getResource(fxml));
+        loader.load();
+        return loader;
+    }
+
+    private static FXMLLoader loadUnchecked(String fxml) {
+        try {
+            return load(fxml);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> time(String phase, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            T result = task.get();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            timings.put(phase, millis);
+            Logger.info("Preloaded {} in {} ms", phase, millis);
+            return result;
+        }, executor);
+    }
+
+    /**
+     * Returns the preloaded game screen, waiting for it if it is still loading. A screen can only be shown once, so
+     * later calls, or any call after preloading failed, load a new one.
+     *
+     * @return the loader holding the root and the controller of the game screen
+     * @throws IOException if the screen cannot be loaded
+     */
+    FXMLLoader takeGameScreen() throws IOException {
+        return take(gameScreen, gameScreenTaken, GAME_SCREEN);
+    }
+
+    /**
+     * Returns the preloaded ending screen, waiting for it if it is still loading. Later calls, or any call after
+     * preloading failed, load a new one.
+     *
+     * @return the loader holding the root and the controller of the ending screen
+     * @throws IOException if the screen cannot be loaded
+     */
+    FXMLLoader takeEndingScreen() throws IOException {
+        return take(endingScreen, endingScreenTaken, ENDING_SCREEN);
+    }
+
+    private FXMLLoader take(CompletableFuture<FXMLLoader> preloaded, AtomicBoolean taken, String fxml)
+            throws IOException {
+        if (taken.compareAndSet(false, true)) {
+            try {
+                return preloaded.join();
+            } catch (CompletionException e) {
+                Logger.warn(e.getCause(), "Preloading {} failed", fxml);
+            }
+        }
+        return load(fxml);
+    }
+
+    /**
+     * Returns the duration of every phase that has finished.
+     *
+     * @return the durations in milliseconds, by phase
+     */
+    Map<String, Long> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+}
@@ -17,9 +17,17 @@ public class OpeningScreenController {
 
     private Stage primaryStage;
 
+    private GameResources resources;
+
     public void setPrimaryStage(Stage primaryStage) {
         this.primaryStage = primaryStage;
     }
+
+    //Starts loading the game screen in the background while the player types their name.
+    @FXML
+    public void initialize() {
+        resources = GameResources.preload();
+    }
     //This method is triggered by a user action in the UI (clicking a "Start Game" button)
 
     @FXML
@@ -28,16 +36,19 @@ public class OpeningScreenController {
 
         Logger.info("Starting game for player: {}", playerName); // Log player name
 
+        long clickedAt = System.currentTimeMillis();
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/puzzle_game.fxml"));
-            Parent root = loader.load();
-            //Loads the main game screen from the FXML file (puzzle_game.fxml)
+            FXMLLoader loader = resources.takeGameScreen();
+            Parent root = loader.getRoot();
+            //Takes the main game screen preloaded from the FXML file (puzzle_game.fxml), waiting if it is still loading
             PuzzleGameController puzzleController = loader.getController();
             //Retrieves the controller for the puzzle game screen (PuzzleGameController)
             puzzleController.setPrimaryStage(primaryStage);
             //passes the primary stage to the puzzle game controller.
             puzzleController.setPlayerName(playerName);
             //Passes the player’s name to the puzzle game controller
+            puzzleController.setResources(resources);
+            //Passes the preloaded ending screen to the puzzle game controller
 
 
             //Sets up and displays the main game screen.
@@ -46,8 +57,10 @@ public class OpeningScreenController {
             primaryStage.setScene(scene);
             primaryStage.setResizable(false);
             primaryStage.show();
+            puzzleController.startClock();
 
-            Logger.info("Game started successfully");
+            Logger.info("Game started successfully in {} ms after Start, preload timings: {}",
+                    System.currentTimeMillis() - clickedAt, resources.getTimings());
         } catch (IOException e) {
             Logger.error("Error loading puzzle game screen", e);
             e.printStackTrace();
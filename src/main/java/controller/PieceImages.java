@@ -0,0 +1,28 @@
+package controller;
+
+import javafx.scene.image.Image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The decoded images of the pieces, shared by every board rendering. An {@link Image} can be shown by any number of
+ * image views, so each file only needs to be decoded once; {@link GameResources} does so in the background.
+ */
+final class PieceImages {
+
+    private static final Map<Character, String> FILES = Map.of('K', "/king.png", 'B', "/bishop.png", 'R', "/rook.png");
+    private static final Map<Character, Image> IMAGES = new ConcurrentHashMap<>();
+
+    private PieceImages() {
+    }
+
+    //Decodes the image on first use, on the calling thread.
+    static Image get(char piece) {
+        return IMAGES.computeIfAbsent(piece, key -> new Image(PieceImages.class.getResourceAsStream(FILES.get(key))));
+    }
+
+    static void loadAll() {
+        FILES.keySet().parallelStream().forEach(PieceImages::get);
+    }
+}
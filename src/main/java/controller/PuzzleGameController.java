@@ -5,7 +5,6 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
@@ -13,9 +12,12 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
+import leaderboard.ResultStore;
+import leaderboard.SolveRecord;
 import org.tinylog.Logger;
 import puzzle.Move;
 import puzzle.Position;
+import puzzle.PuzzleSnapshot;
 import puzzle.PuzzleState;
 
 import java.io.IOException;
@@ -26,14 +28,18 @@ public class PuzzleGameController {
     private GridPane board;
 
     private PuzzleState model;
+    //Published after every move, so other threads can read the game without touching the model.
+    private volatile PuzzleSnapshot snapshot;
     private Stage primaryStage; // Main application stage
 
     private String playerName; // Store player's name
 
-    // Paths to images
-    private static final String KING_IMAGE = "/king.png";
-    private static final String BISHOP_IMAGE = "/bishop.png";
-    private static final String ROOK_IMAGE = "/rook.png";
+    private String boardConfig; // Starting configuration, recorded with the result
+    private int moveCount;
+    private long startTime;
+
+    private GameResources resources; // Preloaded screens; null if the screen was loaded on its own
+    private ResultStore resultStore; // Passed to the ending screen; null for the shared store
 
     public void setPrimaryStage(Stage stage) {
         this.primaryStage = stage;
@@ -43,15 +49,46 @@ public class PuzzleGameController {
         this.playerName = playerName;
     }
 
+    void setResources(GameResources resources) {
+        this.resources = resources;
+    }
+
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    // A preloaded screen is built before the player clicks Start, so the clock starts when it is shown.
+    public void startClock() {
+        startTime = System.currentTimeMillis();
+    }
+
+    // Can be called from any thread, e.g. by a background hint solver.
+    public PuzzleSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     @FXML
     public void initialize() {
         // Initialize model and render board
-        model = new PuzzleState();
-        renderBoard();
+        startGame(new PuzzleState());
 
         Logger.info("Puzzle game initialized");
     }
 
+    // Restarts the game from another board, e.g. a generated instance or a larger board in a benchmark.
+    public void setState(PuzzleState state) {
+        startGame(state.clone());
+    }
+
+    private void startGame(PuzzleState state) {
+        model = state;
+        boardConfig = model.toString();
+        moveCount = 0;
+        startTime = System.currentTimeMillis();
+        snapshot = model.snapshot();
+        renderBoard();
+    }
+
     private void renderBoard() {
         board.getChildren().clear();
         char[][] puzzleBoard = model.getBoard();
@@ -68,17 +105,8 @@ public class PuzzleGameController {
                     piece.setFitWidth(80);
                     piece.setFitHeight(80);
 
-                    switch (puzzleBoard[row][col]) {
-                        case 'K':
-                            piece.setImage(new Image(getClass().getResourceAsStream(KING_IMAGE)));
-                            break;
-                        case 'B':
-                            piece.setImage(new Image(getClass().getResourceAsStream(BISHOP_IMAGE)));
-                            break;
-                        case 'R':
-                            piece.setImage(new Image(getClass().getResourceAsStream(ROOK_IMAGE)));
-                            break;
-                    }
+                    // Decoded once and shared, instead of decoding the PNG again for every render
+                    piece.setImage(PieceImages.get(puzzleBoard[row][col]));
                     cell.getChildren().addAll(rect, piece);
                 } else {
                     rect.setFill(Color.WHITE);
@@ -103,6 +131,8 @@ public class PuzzleGameController {
 
             if (model.isLegalMove(move)) {
                 model.makeMove(move);
+                moveCount++;
+                snapshot = model.snapshot();
                 renderBoard();
 
                 if (model.isSolved()) {
@@ -126,11 +156,17 @@ public class PuzzleGameController {
 
     private void showEndingScreen() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/ending_screen.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = resources != null
+                    ? resources.takeEndingScreen()
+                    : GameResources.load(GameResources.ENDING_SCREEN);
+            Parent root = loader.getRoot();
 
             EndingScreenController endingController = loader.getController();
-            endingController.setPlayerName(playerName);
+            if (resultStore != null) {
+                endingController.setResultStore(resultStore);
+            }
+            endingController.setResult(new SolveRecord(playerName, moveCount,
+                    System.currentTimeMillis() - startTime, boardConfig));
 
             Stage stage = new Stage();
             stage.setTitle("Congratulations!");
@@ -0,0 +1,70 @@
+package distributed;
+
+/**
+ * A set of {@code long} values with open addressing, holding each value in 8 bytes instead of the 50 or so of a
+ * {@code HashSet<Long>} entry. The table is kept at most half full, so the set holds up to
+ * {@value #MAX_SIZE} values.
+ */
+final class LongHashSet {
+
+    private static final long FREE = 0; //Zero itself is tracked separately
+    private static final int MAX_CAPACITY = 1 << 30; //The largest power of two that an array can have
+    static final int MAX_SIZE = MAX_CAPACITY / 2;
+
+    private long[] table = new long[1024];
+    private int size;
+    private boolean containsZero;
+
+    //Adds a value; returns false if it was already present.
+    //Throws IllegalStateException if the set is full.
+    boolean add(long value) {
+        if (value == FREE) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        if (2 * (size + 1) > table.length) {
+            grow();
+        }
+        if (!insert(table, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        for (int slot = mix(value) & mask; ; slot = slot + 1 & mask) {
+            if (table[slot] == value) {
+                return false;
+            }
+            if (table[slot] == FREE) {
+                table[slot] = value;
+                return true;
+            }
+        }
+    }
+
+    private void grow() {
+        if (table.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Cannot hold more than " + MAX_SIZE + " boards");
+        }
+        long[] grown = new long[table.length * 2];
+        for (long value : table) {
+            if (value != FREE) {
+                insert(grown, value);
+            }
+        }
+        table = grown;
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    long size() {
+        return size + (containsZero ? 1 : 0);
+    }
+}
@@ -0,0 +1,23 @@
+package distributed;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code long} values.
+ */
+final class LongList {
+
+    private long[] values = new long[16];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
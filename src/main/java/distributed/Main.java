@@ -0,0 +1,42 @@
+package distributed;
+
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the boards reachable from a start board with a breadth-first search partitioned across worker processes.
+ * <p>
+ * Usage: {@code <start> <workers> [checkpoints] [jvmOptions...]}, for example {@code KBB/RR. 4 ckpt -Xmx8g}. The
+ * board is written as described in {@link PackedBoard}, the optional directory keeps the checkpoints a search
+ * resumes from when it is run again, and the options are passed to every worker JVM. The layers are printed
+ * while the search runs.
+ */
+public class Main {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: <start> <workers> [checkpoints] [jvmOptions...]");
+            System.exit(1);
+        }
+        PackedBoard codec = PackedBoard.forText(args[0]);
+        long start = codec.parse(args[0]);
+        int workers = Integer.parseInt(args[1]);
+        List<String> options = Arrays.asList(args).subList(2, args.length);
+        Path checkpoints = null;
+        if (!options.isEmpty() && !options.get(0).startsWith("-")) {
+            checkpoints = Path.of(options.get(0));
+            options = options.subList(1, options.size());
+        }
+        var launcher = WorkerLauncher.processes(options);
+
+        System.out.println("distance boards reached");
+        long[] layers = new PartitionedSearch(codec, workers, launcher).search(start,
+                (distance, boards, reached) -> System.out.printf("%8d %6d %7d%n", distance, boards, reached),
+                checkpoints);
+        System.out.println("Reachable boards: " + Arrays.stream(layers).sum());
+    }
+}
@@ -0,0 +1,96 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The wire protocol between the driver and the workers.
+ * <p>
+ * Every message is a frame of an {@code int} length, a {@code byte} type and a payload of {@code long} values,
+ * where the length counts the type and the payload. The messages are:
+ * <ul>
+ *     <li>{@link #HELLO} (worker to driver): shard, peer port;</li>
+ *     <li>{@link #CONFIG} (driver to worker): rows, columns, start board, then the peer port of every shard;</li>
+ *     <li>{@link #SAVED} (worker to driver): the number of boards in each checkpointed layer of the shard;</li>
+ *     <li>{@link #RESUME} (driver to worker): the layer to resume from, or -1 to start over;</li>
+ *     <li>{@link #EXPAND} (driver to worker): layer;</li>
+ *     <li>{@link #BATCH} (worker to worker): boards owned by the receiver;</li>
+ *     <li>{@link #END_OF_LAYER} (worker to worker): layer, sent after the last batch of the layer;</li>
+ *     <li>{@link #LAYER_DONE} (worker to driver): layer, number of new boards; also sent once a worker has
+ *     resumed, for the layer it resumed from, so that no worker expands before every visited set is restored;</li>
+ *     <li>{@link #STOP} (driver to worker): no payload.</li>
+ * </ul>
+ */
+final class Message {
+
+    static final byte HELLO = 1;
+    static final byte CONFIG = 2;
+    static final byte EXPAND = 3;
+    static final byte BATCH = 4;
+    static final byte END_OF_LAYER = 5;
+    static final byte LAYER_DONE = 6;
+    static final byte STOP = 7;
+    static final byte SAVED = 8;
+    static final byte RESUME = 9;
+
+    private final byte type;
+    private final long[] values;
+
+    private Message(byte type, long[] values) {
+        this.type = type;
+        this.values = values;
+    }
+
+    byte type() {
+        return type;
+    }
+
+    long value(int index) {
+        return values[index];
+    }
+
+    long[] values() {
+        return values;
+    }
+
+    static void send(DataOutputStream out, byte type, long... values) throws IOException {
+        send(out, type, values, values.length);
+    }
+
+    //Sends the first count values; the caller flushes.
+    static void send(DataOutputStream out, byte type, long[] values, int count) throws IOException {
+        out.writeInt(1 + count * Long.BYTES);
+        out.writeByte(type);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(values[i]);
+        }
+    }
+
+    static Message receive(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte type = in.readByte();
+        long[] values = new long[(length - 1) / Long.BYTES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+        return new Message(type, values);
+    }
+
+    static Message expect(DataInputStream in, byte type) throws IOException {
+        Message message = receive(in);
+        if (message.type != type) {
+            throw new IOException("Expected message " + type + " but got " + message.type);
+        }
+        return message;
+    }
+
+    //The shard owning a board: a mix of all bits of the packed board (the SplitMix64 finalizer),
+    //so that boards differing in one move spread evenly over the shards.
+    static int shard(long packed, int shards) {
+        long hash = (packed ^ packed >>> 30) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ hash >>> 27) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (int) Long.remainderUnsigned(hash, shards);
+    }
+}
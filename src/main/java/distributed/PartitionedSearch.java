@@ -0,0 +1,240 @@
+package distributed;
+
+import analysis.LayerListener;
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives a breadth-first search whose boards are partitioned across several {@link Worker}s by the hash of their
+ * packed encoding, so that the visited set can be larger than the heap of one JVM.
+ * <p>
+ * The driver starts the workers, tells each one the board size, the start board and the ports of its peers, and
+ * then acts as the barrier between layers: it asks every worker to expand its part of the current layer and
+ * waits until all of them report the size of their part of the next one. Workers exchange boards directly with
+ * each other over localhost sockets; the driver only sees the layer sizes. The protocol is described in
+ * {@link Message}. A worker that exits or stays silent before it has connected fails the search, and whatever
+ * way the search ends, the workers still running are stopped.
+ * <p>
+ * A long search can be checkpointed at the layer boundaries; see {@link #search(long, LayerListener, Path)}.
+ * Every worker saves the new boards of its shard for each layer in the background, and a resumed search starts
+ * after the last layer that all shards can read back intact.
+ */
+public class PartitionedSearch {
+
+    private static final int ACCEPT_POLL_MILLIS = 200; //How often the launched workers are checked while waiting
+    private static final long CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final PackedBoard codec;
+    private final int workers;
+    private final WorkerLauncher launcher;
+
+    /**
+     * Constructs a {@code PartitionedSearch} with the specified number of workers.
+     *
+     * @param codec    the codec of the boards
+     * @param workers  the number of workers, each owning one shard
+     * @param launcher the launcher starting the workers
+     */
+    public PartitionedSearch(PackedBoard codec, int workers, WorkerLauncher launcher) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("At least one worker is needed");
+        }
+        this.codec = codec;
+        this.workers = workers;
+        this.launcher = launcher;
+    }
+
+    /**
+     * Searches all boards reachable from a start board, reporting every layer to the listener as soon as all
+     * workers have completed it.
+     *
+     * @param start    the packed start board
+     * @param listener the listener receiving the layers
+     * @return the number of boards in each layer
+     * @throws IOException if a worker cannot be started, exits or does not connect in time, or fails
+     */
+    public long[] search(long start, LayerListener listener) throws IOException {
+        return search(start, listener, null);
+    }
+
+    /**
+     * Searches all boards reachable from a start board, saving every completed layer of each shard to a
+     * directory. If the directory already holds layers of the same search with the same number of workers, for
+     * example because an earlier search was interrupted, the search resumes after the last layer that every shard
+     * can read back intact, and the restored layers are reported to the listener first. The checkpoints are kept
+     * after the search; delete the directory once they are no longer needed.
+     *
+     * @param start       the packed start board
+     * @param listener    the listener receiving the layers
+     * @param checkpoints the directory of the checkpoints, or {@code null} to search without them
+     * @return the number of boards in each layer
+     * @throws IOException if a worker cannot be started, exits or does not connect in time, or fails, or the
+     *                     directory holds the checkpoints of another search
+     */
+    public long[] search(long start, LayerListener listener, Path checkpoints) throws IOException {
+        long startTime = System.currentTimeMillis();
+        WorkerLauncher.Handle[] handles = new WorkerLauncher.Handle[workers];
+        Socket[] sockets = new Socket[workers];
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            for (int shard = 0; shard < workers; shard++) {
+                handles[shard] = launcher.launch(server.getLocalPort(), shard, checkpoints);
+            }
+            DataInputStream[] in = new DataInputStream[workers];
+            DataOutputStream[] out = new DataOutputStream[workers];
+            long[] config = new long[3 + workers];
+            config[0] = codec.rows();
+            config[1] = codec.cols();
+            config[2] = start;
+            server.setSoTimeout(ACCEPT_POLL_MILLIS);
+            long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+            for (int connected = 0; connected < workers; ) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    checkWaiting(handles, sockets, deadline);
+                    continue;
+                }
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                Message hello;
+                try {
+                    socket.setSoTimeout((int) CONNECT_TIMEOUT_MILLIS);
+                    hello = Message.expect(input, Message.HELLO);
+                    socket.setSoTimeout(0);
+                } catch (IOException e) {
+                    socket.close();
+                    throw e;
+                }
+                long shard = hello.value(0);
+                if (shard < 0 || shard >= workers || sockets[(int) shard] != null) {
+                    socket.close();
+                    throw new IOException("Unexpected HELLO from shard " + shard);
+                }
+                sockets[(int) shard] = socket;
+                in[(int) shard] = input;
+                out[(int) shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                config[3 + (int) shard] = hello.value(1);
+                connected++;
+            }
+            for (DataOutputStream worker : out) {
+                Message.send(worker, Message.CONFIG, config);
+                worker.flush();
+            }
+            Logger.info("Started {} workers", workers);
+            List<Long> layers = resume(in, out, listener);
+            return runLayers(in, out, layers, listener, startTime);
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+            for (WorkerLauncher.Handle handle : handles) {
+                if (handle != null && handle.isAlive()) {
+                    handle.destroy();
+                }
+            }
+        }
+    }
+
+    //Fails if a worker that has not connected yet has exited, or if the workers took too long to connect.
+    private static void checkWaiting(WorkerLauncher.Handle[] handles, Socket[] sockets, long deadline)
+            throws IOException {
+        for (int shard = 0; shard < handles.length; shard++) {
+            if (sockets[shard] == null && !handles[shard].isAlive()) {
+                throw new IOException("Worker " + shard + " exited before connecting");
+            }
+        }
+        if (System.currentTimeMillis() > deadline) {
+            throw new IOException("Workers did not connect within " + CONNECT_TIMEOUT_MILLIS + " ms");
+        }
+    }
+
+    //Finds the last layer that every shard has saved, tells the workers to resume from it and reports the layers
+    //up to it. Without checkpoints, the search starts over from the start board in layer 0.
+    private List<Long> resume(DataInputStream[] in, DataOutputStream[] out, LayerListener listener)
+            throws IOException {
+        long[][] saved = new long[workers][];
+        int common = Integer.MAX_VALUE;
+        for (int shard = 0; shard < workers; shard++) {
+            saved[shard] = Message.expect(in[shard], Message.SAVED).values();
+            common = Math.min(common, saved[shard].length);
+        }
+        List<Long> layers = new ArrayList<>();
+        for (int layer = 0; layer < common; layer++) {
+            long boards = 0;
+            for (long[] shardLayers : saved) {
+                boards += shardLayers[layer];
+            }
+            if (boards == 0) {
+                break; //The search had already ended there
+            }
+            layers.add(boards);
+        }
+        for (DataOutputStream worker : out) {
+            Message.send(worker, Message.RESUME, layers.size() - 1);
+            worker.flush();
+        }
+        for (DataInputStream worker : in) {
+            Message.expect(worker, Message.LAYER_DONE);
+        }
+        if (layers.isEmpty()) {
+            layers.add(1L);
+        } else {
+            Logger.info("Resumed from layer {}", layers.size() - 1);
+        }
+        long reached = 0;
+        for (int layer = 0; layer < layers.size(); layer++) {
+            reached += layers.get(layer);
+            listener.onLayer(layer, layers.get(layer), reached);
+        }
+        return layers;
+    }
+
+    private long[] runLayers(DataInputStream[] in, DataOutputStream[] out, List<Long> layers, LayerListener listener,
+                             long startTime) throws IOException {
+        long reached = layers.stream().mapToLong(Long::longValue).sum();
+        for (int layer = layers.size() - 1; ; layer++) {
+            for (DataOutputStream worker : out) {
+                Message.send(worker, Message.EXPAND, layer);
+                worker.flush();
+            }
+            long boards = 0;
+            for (DataInputStream worker : in) {
+                boards += Message.expect(worker, Message.LAYER_DONE).value(1);
+            }
+            if (boards == 0) {
+                break;
+            }
+            reached += boards;
+            layers.add(boards);
+            listener.onLayer(layer + 1, boards, reached);
+        }
+        for (DataOutputStream worker : out) {
+            Message.send(worker, Message.STOP);
+            worker.flush();
+        }
+        //A worker hangs up once its last checkpoint is written, so it is not stopped in the middle of the write.
+        for (DataInputStream worker : in) {
+            if (worker.read() >= 0) {
+                throw new IOException("Unexpected message after STOP");
+            }
+        }
+        Logger.info("Searched {} boards in {} layers with {} workers in {} ms",
+                reached, layers.size(), workers, System.currentTimeMillis() - startTime);
+        return layers.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,278 @@
+package distributed;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * The completed layers of one {@link Worker}'s shard, saved in a directory so that an interrupted
+ * {@link PartitionedSearch} can resume from the last layer that every shard has on disk.
+ * <p>
+ * The directory is laid out like the checkpoints of a tablebase build: every layer is written once, to its own
+ * file, as the packed boards of the shard that are new in that layer, and a manifest lists the layer files with
+ * their CRC-32 checksums. A background thread writes a layer while the next one is expanded, and the manifest is
+ * replaced with an atomic move once the layer file is flushed. The visited set of the shard is the union of its
+ * layers, and the last layer is its frontier.
+ */
+final class ShardCheckpoints {
+
+    private static final int MAGIC = 0x5053434B; // "PSCK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 36; // magic, version, rows, cols, start, shards, shard, number of layers
+    private static final int ENTRY_SIZE = 12; // boards, crc
+    private static final String MANIFEST = "manifest.bin";
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final PackedBoard codec;
+    private final long start;
+    private final int shards;
+    private final int shard;
+    private final List<Entry> entries; //Only changed by the writer thread once the search runs
+    private final ExecutorService writer;
+    private Future<?> pending = CompletableFuture.completedFuture(null);
+    private boolean stopped;
+
+    private record Entry(long boards, int crc) {
+    }
+
+    private ShardCheckpoints(Path directory, PackedBoard codec, long start, int shards, int shard,
+                             List<Entry> entries) {
+        this.directory = directory;
+        this.codec = codec;
+        this.start = start;
+        this.shards = shards;
+        this.shard = shard;
+        this.entries = entries;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "worker-" + shard + "-checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the checkpoints of a shard in a directory, creating it if it does not exist.
+     * A damaged manifest is ignored, so that the shard starts over.
+     *
+     * @param directory the directory of the checkpoints
+     * @param codec     the codec of the boards
+     * @param start     the packed start board of the search
+     * @param shards    the number of shards
+     * @param shard     the shard whose layers are saved
+     * @return the checkpoints
+     * @throws IOException if the directory cannot be created, or holds the checkpoints of another search
+     */
+    static ShardCheckpoints open(Path directory, PackedBoard codec, long start, int shards, int shard)
+            throws IOException {
+        Files.createDirectories(directory);
+        List<Entry> entries = new ArrayList<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(manifest)).order(ByteOrder.LITTLE_ENDIAN);
+            if (!isIntact(buffer)) {
+                Logger.warn("Ignoring damaged checkpoint manifest {}", manifest);
+            } else if (buffer.getInt(8) != codec.rows() || buffer.getInt(12) != codec.cols()
+                    || buffer.getLong(16) != start || buffer.getInt(24) != shards || buffer.getInt(28) != shard) {
+                throw new IOException("Checkpoints of a different search in " + directory);
+            } else {
+                int layers = buffer.getInt(32);
+                for (int i = 0; i < layers; i++) {
+                    int offset = HEADER_SIZE + i * ENTRY_SIZE;
+                    entries.add(new Entry(buffer.getLong(offset), buffer.getInt(offset + 8)));
+                }
+            }
+        }
+        return new ShardCheckpoints(directory, codec, start, shards, shard, entries);
+    }
+
+    private static boolean isIntact(ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < HEADER_SIZE + Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || length != HEADER_SIZE + (long) buffer.getInt(32) * ENTRY_SIZE + Integer.BYTES) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - Integer.BYTES);
+        return (int) crc.getValue() == buffer.getInt(length - Integer.BYTES);
+    }
+
+    /**
+     * Reads every saved layer back to check it, forgetting the first damaged layer and all later ones.
+     *
+     * @return the number of boards in each intact layer, starting with layer 0
+     */
+    long[] verify() {
+        for (int distance = 0; distance < entries.size(); distance++) {
+            if (read(distance) == null) {
+                break;
+            }
+        }
+        return entries.stream().mapToLong(Entry::boards).toArray();
+    }
+
+    /**
+     * Reads a saved layer. If the layer file is missing or damaged, it and all later layers are forgotten.
+     *
+     * @param distance the distance of the layer from the start
+     * @return the packed boards of the layer, or {@code null} if it is not available
+     */
+    long[] read(int distance) {
+        if (distance >= entries.size()) {
+            return null;
+        }
+        Entry entry = entries.get(distance);
+        Path file = directory.resolve(layerFile(distance));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != entry.boards * Long.BYTES) {
+                return forget(distance, "it has the wrong size");
+            }
+            long[] boards = new long[(int) entry.boards];
+            ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < boards.length; i++) {
+                if (!data.hasRemaining()) {
+                    fill(channel, data);
+                    crc.update(data.duplicate());
+                }
+                boards[i] = data.getLong();
+            }
+            if ((int) crc.getValue() != entry.crc) {
+                return forget(distance, "its checksum does not match");
+            }
+            return boards;
+        } catch (IOException e) {
+            return forget(distance, e.toString());
+        }
+    }
+
+    private long[] forget(int distance, String reason) {
+        Logger.warn("Checkpoint of layer {} of shard {} cannot be used because {}", distance, shard, reason);
+        entries.subList(distance, entries.size()).clear();
+        return null;
+    }
+
+    /**
+     * Starts writing a complete layer in the background. The array must not be modified afterwards.
+     * Waits for the previous layer to be written first, so that at most one layer is queued.
+     * If a write fails, the search goes on without further checkpoints.
+     *
+     * @param distance the distance of the layer from the start; every earlier layer must have been saved
+     * @param boards   the packed boards of the shard that are new in the layer
+     */
+    void save(int distance, long[] boards) {
+        awaitPending();
+        if (!stopped) {
+            pending = writer.submit(() -> {
+                write(distance, boards);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Waits for the last layer to be written and stops the background thread.
+     */
+    void close() {
+        awaitPending();
+        writer.shutdown();
+    }
+
+    private void awaitPending() {
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } catch (ExecutionException e) {
+            Logger.warn(e.getCause(), "Checkpointing of shard {} stopped after layer {}", shard, entries.size() - 1);
+            stopped = true;
+        }
+    }
+
+    private void write(int distance, long[] boards) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(directory.resolve(layerFile(distance)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (long board : boards) {
+                data.putLong(board);
+                if (!data.hasRemaining()) {
+                    flush(channel, data, crc);
+                }
+            }
+            flush(channel, data, crc);
+            channel.force(false);
+        }
+        entries.subList(distance, entries.size()).clear();
+        entries.add(new Entry(boards.length, (int) crc.getValue()));
+        writeManifest();
+    }
+
+    //Reads up to a full buffer, which always ends on a value since the file holds whole longs.
+    private static void fill(FileChannel channel, ByteBuffer data) throws IOException {
+        data.clear();
+        while (data.hasRemaining()) {
+            if (channel.read(data) < 0) {
+                break;
+            }
+        }
+        data.flip();
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer data, CRC32 crc) throws IOException {
+        data.flip();
+        crc.update(data.duplicate());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        data.clear();
+    }
+
+    private void writeManifest() throws IOException {
+        ByteBuffer manifest = ByteBuffer.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE + Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        manifest.putInt(MAGIC).putInt(VERSION)
+                .putInt(codec.rows()).putInt(codec.cols())
+                .putLong(start)
+                .putInt(shards).putInt(shard)
+                .putInt(entries.size());
+        for (Entry entry : entries) {
+            manifest.putLong(entry.boards).putInt(entry.crc);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(manifest.array(), 0, manifest.position());
+        manifest.putInt((int) crc.getValue()).flip();
+
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (manifest.hasRemaining()) {
+                channel.write(manifest);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, directory.resolve(MANIFEST),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String layerFile(int distance) {
+        return String.format("layer-%04d.bin", distance);
+    }
+}
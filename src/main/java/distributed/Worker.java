@@ -0,0 +1,270 @@
+package distributed;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A worker of a {@link PartitionedSearch}, owning the boards of one shard.
+ * <p>
+ * The worker keeps the visited set and the frontier of its shard. For each layer, it expands its frontier,
+ * keeps the new successors it owns and sends the others in batches to their owners, followed by an end-of-layer
+ * marker. Once every peer's marker has arrived, the new boards among those received complete the next
+ * frontier, and its size is reported to the driver. Batches are read by one thread per peer, so that
+ * workers sending to each other at the same time cannot block on full socket buffers, and are merged into the
+ * visited set as they arrive, so that only the new boards of a layer are held, not every board sent.
+ * <p>
+ * With a checkpoint directory, the worker saves the new boards of every layer to its own subdirectory in the
+ * background, and on start reports the layers it has on disk, so that the driver can resume the search.
+ * <p>
+ * Usage: {@code <driverPort> <shard> [checkpoints]}; the driver starts the workers itself.
+ */
+public class Worker {
+
+    private static final int BATCH_SIZE = 8192;
+
+    private final int shard;
+    private final int driverPort;
+    private final Path checkpoints;
+    private final ServerSocket peerServer;
+
+    private final Semaphore layerEnds = new Semaphore(0);
+    private final LongHashSet visited = new LongHashSet(); //Guarded by itself, like next
+    private LongList next = new LongList(); //The new boards of the current layer
+    private volatile IOException peerFailure;
+
+    /**
+     * Constructs a {@code Worker} for one shard and opens its port for the other workers.
+     *
+     * @param driverPort  the port of the driver on the local host
+     * @param shard       the shard owned by the worker
+     * @param checkpoints the directory of the checkpoints of all shards, or {@code null} to search without them
+     * @throws IOException if the port cannot be opened
+     */
+    public Worker(int driverPort, int shard, Path checkpoints) throws IOException {
+        this.shard = shard;
+        this.driverPort = driverPort;
+        this.checkpoints = checkpoints;
+        this.peerServer = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) {
+        try {
+            new Worker(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    args.length > 2 ? Path.of(args[2]) : null).run();
+        } catch (IOException e) {
+            Logger.error(e, "Worker {} failed", args[1]);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the worker until the driver stops it.
+     *
+     * @throws IOException if the connection to the driver or to another worker fails, or the checkpoints
+     *                     belong to another search
+     */
+    public void run() throws IOException {
+        try (Socket driver = new Socket(InetAddress.getLoopbackAddress(), driverPort);
+             peerServer) {
+            DataInputStream fromDriver = new DataInputStream(new BufferedInputStream(driver.getInputStream()));
+            DataOutputStream toDriver = new DataOutputStream(new BufferedOutputStream(driver.getOutputStream()));
+            Message.send(toDriver, Message.HELLO, shard, peerServer.getLocalPort());
+            toDriver.flush();
+
+            Message config = Message.expect(fromDriver, Message.CONFIG);
+            PackedBoard codec = PackedBoard.of((int) config.value(0), (int) config.value(1));
+            long start = config.value(2);
+            long[] ports = Arrays.copyOfRange(config.values(), 3, config.values().length);
+            int shards = ports.length;
+
+            ShardCheckpoints saved = checkpoints == null ? null
+                    : ShardCheckpoints.open(checkpoints.resolve("shard-" + shard), codec, start, shards, shard);
+            DataOutputStream[] toPeers = connectToPeers(ports);
+            List<Socket> incoming = acceptPeers(shards - 1);
+            try {
+                search(codec, start, shards, fromDriver, toDriver, toPeers, saved);
+            } finally {
+                if (saved != null) {
+                    saved.close();
+                }
+                for (Socket socket : incoming) {
+                    socket.close();
+                }
+                for (DataOutputStream out : toPeers) {
+                    if (out != null) {
+                        out.close();
+                    }
+                }
+            }
+        }
+    }
+
+    private DataOutputStream[] connectToPeers(long[] ports) throws IOException {
+        DataOutputStream[] toPeers = new DataOutputStream[ports.length];
+        for (int peer = 0; peer < ports.length; peer++) {
+            if (peer != shard) {
+                //The peer's backlog holds the connection until it accepts it, so the order does not matter.
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), (int) ports[peer]);
+                toPeers[peer] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            }
+        }
+        return toPeers;
+    }
+
+    private List<Socket> acceptPeers(int count) throws IOException {
+        List<Socket> sockets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Socket socket = peerServer.accept();
+            sockets.add(socket);
+            Thread receiver = new Thread(() -> receive(socket), "worker-" + shard + "-receiver-" + sockets.size());
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+        return sockets;
+    }
+
+    private void receive(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            while (true) {
+                Message message = Message.receive(in);
+                if (message.type() == Message.BATCH) {
+                    synchronized (visited) {
+                        for (long state : message.values()) {
+                            if (visited.add(state)) {
+                                next.add(state);
+                            }
+                        }
+                    }
+                } else if (message.type() == Message.END_OF_LAYER) {
+                    layerEnds.release();
+                }
+            }
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                peerFailure = e;
+                layerEnds.release(Integer.MAX_VALUE / 2);
+            }
+        } catch (IllegalStateException e) {
+            peerFailure = new IOException("Worker " + shard + " is out of space", e);
+            layerEnds.release(Integer.MAX_VALUE / 2);
+        }
+    }
+
+    //Reports the saved layers and restores the visited set and frontier of the layer the driver resumes from.
+    private long[] resume(long start, int shards, DataInputStream fromDriver, DataOutputStream toDriver,
+                          ShardCheckpoints saved) throws IOException {
+        Message.send(toDriver, Message.SAVED, saved == null ? new long[0] : saved.verify());
+        toDriver.flush();
+        int resumed = (int) Message.expect(fromDriver, Message.RESUME).value(0);
+        if (resumed < 0) {
+            long[] frontier = {};
+            if (Message.shard(start, shards) == shard) {
+                synchronized (visited) {
+                    visited.add(start);
+                }
+                frontier = new long[]{start};
+            }
+            if (saved != null) {
+                saved.save(0, frontier);
+            }
+            return resumed(0, frontier, toDriver);
+        }
+        long[] frontier = null;
+        for (int distance = 0; distance <= resumed; distance++) {
+            frontier = saved.read(distance);
+            if (frontier == null) {
+                throw new IOException("Layer " + distance + " of shard " + shard + " can no longer be read");
+            }
+            synchronized (visited) {
+                for (long state : frontier) {
+                    visited.add(state);
+                }
+            }
+        }
+        return resumed(resumed, frontier, toDriver);
+    }
+
+    private static long[] resumed(int layer, long[] frontier, DataOutputStream toDriver) throws IOException {
+        Message.send(toDriver, Message.LAYER_DONE, layer, frontier.length);
+        toDriver.flush();
+        return frontier;
+    }
+
+    private void search(PackedBoard codec, long start, int shards, DataInputStream fromDriver,
+                        DataOutputStream toDriver, DataOutputStream[] toPeers, ShardCheckpoints saved)
+            throws IOException {
+        long[] frontier = resume(start, shards, fromDriver, toDriver, saved);
+        long[] successors = new long[codec.squares()];
+        long[][] batches = new long[shards][BATCH_SIZE];
+        int[] batchSizes = new int[shards];
+        while (true) {
+            Message message = Message.receive(fromDriver);
+            if (message.type() == Message.STOP) {
+                synchronized (visited) {
+                    Logger.info("Worker {} visited {} boards", shard, visited.size());
+                }
+                return;
+            }
+            long layer = message.value(0);
+            for (long state : frontier) {
+                int count = codec.successors(state, successors);
+                for (int i = 0; i < count; i++) {
+                    int owner = Message.shard(successors[i], shards);
+                    if (owner == shard) {
+                        synchronized (visited) {
+                            if (visited.add(successors[i])) {
+                                next.add(successors[i]);
+                            }
+                        }
+                        continue;
+                    }
+                    batches[owner][batchSizes[owner]++] = successors[i];
+                    if (batchSizes[owner] == BATCH_SIZE) {
+                        Message.send(toPeers[owner], Message.BATCH, batches[owner], BATCH_SIZE);
+                        batchSizes[owner] = 0;
+                    }
+                }
+            }
+            for (int peer = 0; peer < shards; peer++) {
+                if (peer != shard) {
+                    if (batchSizes[peer] > 0) {
+                        Message.send(toPeers[peer], Message.BATCH, batches[peer], batchSizes[peer]);
+                        batchSizes[peer] = 0;
+                    }
+                    Message.send(toPeers[peer], Message.END_OF_LAYER, layer);
+                    toPeers[peer].flush();
+                }
+            }
+            //The driver only starts the next layer once every worker has finished this one,
+            //so everything received before the markers belongs to this layer.
+            layerEnds.acquireUninterruptibly(shards - 1);
+            if (peerFailure != null) {
+                throw peerFailure;
+            }
+            synchronized (visited) {
+                frontier = next.toArray();
+                next = new LongList();
+            }
+            if (saved != null) {
+                saved.save((int) layer + 1, frontier);
+            }
+            Message.send(toDriver, Message.LAYER_DONE, layer, frontier.length);
+            toDriver.flush();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the workers of a {@link PartitionedSearch}. A started worker connects to the driver on its own.
+ */
+@FunctionalInterface
+public interface WorkerLauncher {
+
+    /**
+     * A started worker, which the driver watches while it waits for the worker to connect and stops once the
+     * search is over.
+     */
+    interface Handle {
+
+        /**
+         * Returns whether the worker is still running.
+         *
+         * @return {@code true} if the worker has not exited yet
+         */
+        boolean isAlive();
+
+        /**
+         * Stops the worker if it is still running.
+         */
+        void destroy();
+    }
+
+    /**
+     * Starts the worker of a shard.
+     *
+     * @param driverPort  the port of the driver on the local host
+     * @param shard       the shard owned by the worker
+     * @param checkpoints the directory of the checkpoints of all shards, or {@code null} to search without them
+     * @return the handle of the started worker
+     * @throws IOException if the worker cannot be started
+     */
+    Handle launch(int driverPort, int shard, Path checkpoints) throws IOException;
+
+    /**
+     * Returns a launcher that starts every worker in its own JVM, with the class path of this one.
+     *
+     * @param jvmOptions the options of the worker JVMs, for example {@code -Xmx8g}
+     * @return the launcher
+     */
+    static WorkerLauncher processes(List<String> jvmOptions) {
+        return (driverPort, shard, checkpoints) -> {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Worker.class.getName());
+            command.add(String.valueOf(driverPort));
+            command.add(String.valueOf(shard));
+            if (checkpoints != null) {
+                command.add(checkpoints.toAbsolutePath().toString());
+            }
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            return new Handle() {
+                @Override
+                public boolean isAlive() {
+                    return process.isAlive();
+                }
+
+                @Override
+                public void destroy() {
+                    process.destroy();
+                }
+            };
+        };
+    }
+
+    /**
+     * Returns a launcher that runs every worker on a thread of this JVM. The workers still talk over sockets;
+     * this is meant for testing. Destroying a worker only interrupts its thread, which ends once the driver has
+     * closed its connection.
+     *
+     * @return the launcher
+     */
+    static WorkerLauncher threads() {
+        return (driverPort, shard, checkpoints) -> {
+            Worker worker = new Worker(driverPort, shard, checkpoints);
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "worker-" + shard);
+            thread.setDaemon(true);
+            thread.start();
+            return new Handle() {
+                @Override
+                public boolean isAlive() {
+                    return thread.isAlive();
+                }
+
+                @Override
+                public void destroy() {
+                    thread.interrupt();
+                }
+            };
+        };
+    }
+}
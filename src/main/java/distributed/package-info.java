@@ -0,0 +1,4 @@
+/**
+ * This package contains classes for a breadth-first search partitioned across several worker processes.
+ */
+package distributed;
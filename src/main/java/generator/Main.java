@@ -0,0 +1,41 @@
+package generator;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates puzzle instances of a given difficulty and writes them to a file.
+ * <p>
+ * Usage: {@code <goal> <minDistance> <maxDistance> <count> <output> [exact|walk] [seed]}, for example
+ * {@code BB./RRK 8 11 100 instances.txt}. The goal is written as described in {@link PackedBoard}.
+ */
+public class Main {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: <goal> <minDistance> <maxDistance> <count> <output> [exact|walk] [seed]");
+            System.exit(1);
+        }
+        PackedBoard codec = PackedBoard.forText(args[0]);
+        long goal = codec.parse(args[0]);
+        int minDistance = Integer.parseInt(args[1]);
+        int maxDistance = Integer.parseInt(args[2]);
+        int count = Integer.parseInt(args[3]);
+        boolean randomWalk = args.length > 5 && args[5].equals("walk");
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+
+        PuzzleGenerator generator = new PuzzleGenerator(codec, goal);
+        try (Writer out = Files.newBufferedWriter(Path.of(args[4]), StandardCharsets.UTF_8)) {
+            int written = randomWalk
+                    ? generator.generateByRandomWalk(minDistance, maxDistance, count, 2 * maxDistance, seed, out)
+                    : generator.generateExact(minDistance, maxDistance, count, seed, out);
+            Logger.info("Wrote {} instances to {}", written, args[4]);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package generator;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+import puzzle.PuzzleState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Generates start configurations that are a given number of moves away from a goal configuration.
+ * <p>
+ * The board size and the multiset of pieces are those of the goal. Since every move can be undone, the optimal
+ * distance of a configuration to the goal equals its distance from the goal, so configurations are found by
+ * searching backwards from the goal:
+ * <ul>
+ *     <li>{@link #generateExact} runs a reverse breadth-first search up to the maximum distance and samples the
+ *     configurations of the requested layers,</li>
+ *     <li>{@link #generateByRandomWalk} takes random walks from the goal and keeps the end points whose exact distance
+ *     is in range; it only needs a search of half the maximum distance, so it works for deeper targets.</li>
+ * </ul>
+ * Both run on all available cores, each worker with its own random number generator split from the seed, and write
+ * every configuration at most once. Output lines have the form {@code "<board> <distance>"}, for example
+ * {@code "KBB/RR. 11"}, and are written as soon as they are found.
+ */
+public class PuzzleGenerator {
+
+    private static final int MAX_ATTEMPTS_PER_INSTANCE = 1000;
+
+    private final PackedBoard codec;
+    private final long goal;
+    private final int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Constructs a {@code PuzzleGenerator} for the specified goal.
+     *
+     * @param codec the codec for the board size of the goal
+     * @param goal  the packed goal configuration
+     */
+    public PuzzleGenerator(PackedBoard codec, long goal) {
+        this.codec = codec;
+        this.goal = goal;
+    }
+
+    /**
+     * Generates configurations whose optimal distance to the goal is between {@code minDistance} and
+     * {@code maxDistance}, inclusive, using a reverse breadth-first search from the goal.
+     * If there are fewer such configurations than {@code count}, all of them are written.
+     *
+     * @param minDistance the minimum distance to the goal
+     * @param maxDistance the maximum distance to the goal
+     * @param count       the number of configurations to generate
+     * @param seed        the seed of the random number generators
+     * @param out         the writer the configurations are streamed to
+     * @return the number of configurations written
+     * @throws IOException if writing fails
+     */
+    public int generateExact(int minDistance, int maxDistance, int count, long seed, Writer out) throws IOException {
+        List<long[]> layers = new ArrayList<>();
+        Map<Long, Integer> distances = searchFromGoal(maxDistance, layers);
+
+        long[] pool = layers.stream()
+                .skip(Math.min(minDistance, layers.size()))
+                .flatMapToLong(Arrays::stream)
+                .toArray();
+        Logger.info("{} configurations between distance {} and {}", pool.length, minDistance, maxDistance);
+
+        if (pool.length <= count) {
+            for (long state : pool) {
+                write(out, state, distances.get(state));
+            }
+            out.flush();
+            return pool.length;
+        }
+        Set<Long> chosen = ConcurrentHashMap.newKeySet();
+        AtomicInteger written = new AtomicInteger();
+        runWorkers(seed, random -> {
+            while (written.get() < count) {
+                long state = pool[random.nextInt(pool.length)];
+                if (chosen.add(state) && written.incrementAndGet() <= count) {
+                    write(out, state, distances.get(state));
+                }
+            }
+        });
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Generates configurations whose optimal distance to the goal is between {@code minDistance} and
+     * {@code maxDistance}, inclusive, by taking random walks of up to {@code walkLength} moves from the goal.
+     * The exact distance of every walk's end point is checked, so the output is graded like that of
+     * {@link #generateExact}. Generation stops early if too many walks end out of range.
+     *
+     * @param minDistance the minimum distance to the goal
+     * @param maxDistance the maximum distance to the goal
+     * @param count       the number of configurations to generate
+     * @param walkLength  the maximum length of a random walk; must be at least {@code minDistance}
+     * @param seed        the seed of the random number generators
+     * @param out         the writer the configurations are streamed to
+     * @return the number of configurations written
+     * @throws IOException if writing fails
+     */
+    public int generateByRandomWalk(int minDistance, int maxDistance, int count, int walkLength, long seed,
+                                    Writer out) throws IOException {
+        if (walkLength < minDistance) {
+            throw new IllegalArgumentException("Walks must be at least " + minDistance + " moves long");
+        }
+        //Every configuration within maxDistance is within radius of a configuration in the ball,
+        //so a forward search of maxDistance - radius moves finds its exact distance.
+        int radius = (maxDistance + 1) / 2;
+        Map<Long, Integer> ball = searchFromGoal(radius, new ArrayList<>());
+
+        Set<Long> chosen = ConcurrentHashMap.newKeySet();
+        AtomicInteger written = new AtomicInteger();
+        AtomicLong attemptsLeft = new AtomicLong((long) count * MAX_ATTEMPTS_PER_INSTANCE);
+        runWorkers(seed, random -> {
+            while (written.get() < count && attemptsLeft.getAndDecrement() > 0) {
+                long state = randomWalk(random, random.nextInt(minDistance, walkLength + 1));
+                if (chosen.contains(state)) {
+                    continue;
+                }
+                int distance = exactDistance(state, ball, maxDistance - radius);
+                if (distance >= minDistance && distance <= maxDistance
+                        && chosen.add(state) && written.incrementAndGet() <= count) {
+                    write(out, state, distance);
+                }
+            }
+        });
+        out.flush();
+        return Math.min(written.get(), count);
+    }
+
+    //Layered breadth-first search from the goal; each layer is expanded in parallel.
+    private Map<Long, Integer> searchFromGoal(int maxDistance, List<long[]> layers) {
+        Map<Long, Integer> distances = new ConcurrentHashMap<>();
+        distances.put(goal, 0);
+        long[] frontier = {goal};
+        for (int distance = 0; frontier.length > 0 && distance <= maxDistance; distance++) {
+            layers.add(frontier);
+            if (distance == maxDistance) {
+                break;
+            }
+            int next = distance + 1;
+            frontier = Arrays.stream(frontier).parallel()
+                    .flatMap(this::successors)
+                    .filter(state -> distances.putIfAbsent(state, next) == null)
+                    .toArray();
+        }
+        Logger.info("Searched {} configurations up to distance {}", distances.size(), layers.size() - 1);
+        return distances;
+    }
+
+    private long randomWalk(SplittableRandom random, int length) {
+        PuzzleState state = codec.toState(goal);
+        long previous = -1;
+        long current = goal;
+        for (int step = 0; step < length; step++) {
+            long[] successors = successors(state).toArray();
+            int index = random.nextInt(successors.length);
+            //Avoid undoing the previous move unless it is the only one
+            if (successors[index] == previous && successors.length > 1) {
+                index = (index + 1 + random.nextInt(successors.length - 1)) % successors.length;
+            }
+            previous = current;
+            current = successors[index];
+            state = codec.toState(current);
+        }
+        return current;
+    }
+
+    //Searches forward from the state until it meets the ball around the goal; returns -1 if it is too far away.
+    private int exactDistance(long state, Map<Long, Integer> ball, int depth) {
+        int best = Integer.MAX_VALUE;
+        Set<Long> seen = new HashSet<>();
+        seen.add(state);
+        long[] frontier = {state};
+        for (int k = 0; k <= depth && k < best && frontier.length > 0; k++) {
+            for (long s : frontier) {
+                Integer distance = ball.get(s);
+                if (distance != null) {
+                    best = Math.min(best, k + distance);
+                }
+            }
+            frontier = Arrays.stream(frontier)
+                    .flatMap(this::successors)
+                    .filter(seen::add)
+                    .toArray();
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    private LongStream successors(long packed) {
+        return successors(codec.toState(packed));
+    }
+
+    private LongStream successors(PuzzleState state) {
+        return state.getLegalMoves().stream().mapToLong(move -> {
+            PuzzleState next = state.clone();
+            next.makeMove(move);
+            return codec.pack(next);
+        });
+    }
+
+    private synchronized void write(Writer out, long state, int distance) {
+        try {
+            out.write(codec.format(state) + " " + distance + System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Worker {
+        void run(SplittableRandom random);
+    }
+
+    //Runs one worker per core, each with its own generator split from the seed.
+    private void runWorkers(long seed, Worker worker) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            SplittableRandom root = new SplittableRandom(seed);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                SplittableRandom random = root.split();
+                futures.add(executor.submit(() -> worker.run(random)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
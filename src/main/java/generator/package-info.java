@@ -0,0 +1,4 @@
+/**
+ * This package contains classes for generating puzzle instances of a given difficulty.
+ */
+package generator;
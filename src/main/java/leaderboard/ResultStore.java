@@ -0,0 +1,296 @@
+package leaderboard;
+
+import org.tinylog.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * An append-only, memory-mapped log of {@link SolveRecord}s with in-memory indexes for leaderboard queries.
+ * <p>
+ * Records are never modified once written. The file starts with a small header that holds the offset
+ * of the end of the last committed record, so a record that was only partially written is ignored
+ * when the store is reopened; a committed record whose lengths do not fit is dropped together with the
+ * records after it. The indexes are rebuilt from the log on {@link #open(Path)}; after that,
+ * every query is answered from the indexes without scanning the log:
+ * <ul>
+ *     <li>top-N by moves or by time for a board configuration takes {@code O(log n + N)},</li>
+ *     <li>looking up the results of a player takes time proportional to the number of results returned.</li>
+ * </ul>
+ * The log is limited to {@link Integer#MAX_VALUE} bytes, which is room for tens of millions of records.
+ * All methods are thread-safe.
+ */
+public class ResultStore implements Closeable {
+
+    /**
+     * The default location of the result log, in the user's home directory.
+     */
+    public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".puzzle-game", "results.log");
+
+    private static final int MAGIC = 0x50475253; // "PGRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16; // magic, version, committed end offset
+    private static final int END_OFFSET_POSITION = 8;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    private static final int MIN_RECORD_LENGTH = 4 + 8 + 2 + 2; // moves, time, name and configuration lengths
+
+    //Sort orders of the leaderboards; the offset makes entries with equal scores distinct.
+    private static final Comparator<IndexEntry> BY_MOVES = Comparator
+            .comparingInt((IndexEntry e) -> e.moves)
+            .thenComparingLong(e -> e.elapsedMillis)
+            .thenComparingInt(e -> e.offset);
+    private static final Comparator<IndexEntry> BY_TIME = Comparator
+            .comparingLong((IndexEntry e) -> e.elapsedMillis)
+            .thenComparingInt(e -> e.moves)
+            .thenComparingInt(e -> e.offset);
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int end; //Offset just past the last committed record
+    private int size;
+
+    private final Map<String, NavigableSet<IndexEntry>> byMoves = new HashMap<>();
+    private final Map<String, NavigableSet<IndexEntry>> byTime = new HashMap<>();
+    private final Map<String, List<IndexEntry>> byPlayer = new HashMap<>();
+
+    //Index entries only hold the sort keys and the position of the full record in the log.
+    private static final class IndexEntry {
+        private final int moves;
+        private final long elapsedMillis;
+        private final int offset;
+
+        private IndexEntry(int moves, long elapsedMillis, int offset) {
+            this.moves = moves;
+            this.elapsedMillis = elapsedMillis;
+            this.offset = offset;
+        }
+    }
+
+    private ResultStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the result log at the given path, creating it if it does not exist, and rebuilds the indexes.
+     *
+     * @param path the path of the log file
+     * @return the opened store
+     * @throws IOException if the file cannot be opened or is not a result log
+     */
+    public static ResultStore open(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ResultStore store = new ResultStore(channel);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Result log is too large");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(fileSize, INITIAL_CAPACITY));
+        if (fileSize < HEADER_SIZE) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(END_OFFSET_POSITION, HEADER_SIZE);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a result log");
+        }
+        long committedEnd = buffer.getLong(END_OFFSET_POSITION);
+        if (committedEnd < HEADER_SIZE || committedEnd > buffer.capacity()) {
+            throw new IOException("Corrupt result log header");
+        }
+        end = (int) committedEnd;
+
+        int offset = HEADER_SIZE;
+        while (offset < end) {
+            if (!isValidRecord(offset)) {
+                //Keep the records before the damage, and let new records overwrite the rest.
+                Logger.warn("Corrupt record at offset {} of the result log, dropping the rest of the log", offset);
+                end = offset;
+                buffer.putLong(END_OFFSET_POSITION, end);
+                break;
+            }
+            index(readRecord(offset), offset);
+            offset += 4 + buffer.getInt(offset);
+        }
+        Logger.info("Loaded {} results from the result log", size);
+    }
+
+    /**
+     * Appends a record to the log and adds it to the indexes.
+     *
+     * @param record the record to append
+     * @throws IOException if the log cannot grow to hold the record
+     * @throws IllegalArgumentException if the player name or the board configuration is too long
+     */
+    public synchronized void append(SolveRecord record) throws IOException {
+        byte[] name = record.getPlayerName().getBytes(StandardCharsets.UTF_8);
+        byte[] config = record.getBoardConfig().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_STRING_BYTES || config.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Player name or board configuration is too long");
+        }
+        int length = MIN_RECORD_LENGTH + name.length + config.length;
+        ensureCapacity((long) end + 4 + length);
+
+        int offset = end;
+        int position = offset;
+        buffer.putInt(position, length);
+        buffer.putInt(position += 4, record.getMoves());
+        buffer.putLong(position += 4, record.getElapsedMillis());
+        buffer.putShort(position += 8, (short) name.length);
+        buffer.put(position += 2, name);
+        buffer.putShort(position += name.length, (short) config.length);
+        buffer.put(position + 2, config);
+
+        //The record only becomes visible once the header points past it.
+        end = offset + 4 + length;
+        buffer.putLong(END_OFFSET_POSITION, end);
+        index(record, offset);
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IOException("Result log is full");
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity()));
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void index(SolveRecord record, int offset) {
+        IndexEntry entry = new IndexEntry(record.getMoves(), record.getElapsedMillis(), offset);
+        byMoves.computeIfAbsent(record.getBoardConfig(), k -> new TreeSet<>(BY_MOVES)).add(entry);
+        byTime.computeIfAbsent(record.getBoardConfig(), k -> new TreeSet<>(BY_TIME)).add(entry);
+        byPlayer.computeIfAbsent(record.getPlayerName(), k -> new ArrayList<>()).add(entry);
+        size++;
+    }
+
+    //Checks that the lengths stored in a record fit inside the committed part of the log.
+    private boolean isValidRecord(int offset) {
+        if (end - offset < 4 + MIN_RECORD_LENGTH) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length < MIN_RECORD_LENGTH || length > end - offset - 4) {
+            return false;
+        }
+        int nameLength = Short.toUnsignedInt(buffer.getShort(offset + 16));
+        if (MIN_RECORD_LENGTH + nameLength > length) {
+            return false;
+        }
+        int configLength = Short.toUnsignedInt(buffer.getShort(offset + 18 + nameLength));
+        return MIN_RECORD_LENGTH + nameLength + configLength == length;
+    }
+
+    private SolveRecord readRecord(int offset) {
+        int position = offset + 4;
+        int moves = buffer.getInt(position);
+        long elapsedMillis = buffer.getLong(position += 4);
+        byte[] name = new byte[Short.toUnsignedInt(buffer.getShort(position += 8))];
+        buffer.get(position += 2, name);
+        byte[] config = new byte[Short.toUnsignedInt(buffer.getShort(position += name.length))];
+        buffer.get(position + 2, config);
+        return new SolveRecord(new String(name, StandardCharsets.UTF_8), moves, elapsedMillis,
+                new String(config, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the best results for a board configuration, ordered by the number of moves and then by time.
+     *
+     * @param boardConfig the board configuration
+     * @param n           the maximum number of results to return
+     * @return at most {@code n} records, best first
+     */
+    public synchronized List<SolveRecord> topByMoves(String boardConfig, int n) {
+        return top(byMoves.get(boardConfig), n);
+    }
+
+    /**
+     * Returns the best results for a board configuration, ordered by time and then by the number of moves.
+     *
+     * @param boardConfig the board configuration
+     * @param n           the maximum number of results to return
+     * @return at most {@code n} records, best first
+     */
+    public synchronized List<SolveRecord> topByTime(String boardConfig, int n) {
+        return top(byTime.get(boardConfig), n);
+    }
+
+    private List<SolveRecord> top(NavigableSet<IndexEntry> entries, int n) {
+        if (entries == null || n <= 0) {
+            return Collections.emptyList();
+        }
+        List<SolveRecord> result = new ArrayList<>(Math.min(n, entries.size()));
+        Iterator<IndexEntry> iterator = entries.iterator();
+        while (iterator.hasNext() && result.size() < n) {
+            result.add(readRecord(iterator.next().offset));
+        }
+        return result;
+    }
+
+    /**
+     * Returns all results of a player, in the order they were appended.
+     *
+     * @param playerName the name of the player
+     * @return the records of the player
+     */
+    public synchronized List<SolveRecord> findByPlayer(String playerName) {
+        List<IndexEntry> entries = byPlayer.getOrDefault(playerName, Collections.emptyList());
+        List<SolveRecord> result = new ArrayList<>(entries.size());
+        for (IndexEntry entry : entries) {
+            result.add(readRecord(entry.offset));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of records in the store.
+     *
+     * @return the number of records
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Flushes the log to disk and closes the store.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
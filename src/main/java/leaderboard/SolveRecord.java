@@ -0,0 +1,110 @@
+package leaderboard;
+
+import java.util.Objects;
+
+/**
+ * Represents the result of a single solved puzzle: who solved it, how many moves and how much time it took,
+ * and which board configuration was played.
+ */
+public class SolveRecord {
+
+    private final String playerName;
+    private final int moves;
+    private final long elapsedMillis;
+    private final String boardConfig;
+
+    /**
+     * Constructs a {@code SolveRecord} with the specified values.
+     *
+     * @param playerName    the name of the player who solved the puzzle
+     * @param moves         the number of moves the player made
+     * @param elapsedMillis the time it took to solve the puzzle, in milliseconds
+     * @param boardConfig   the starting board configuration the puzzle was played on
+     * @throws IllegalArgumentException if {@code moves} or {@code elapsedMillis} is negative
+     */
+    public SolveRecord(String playerName, int moves, long elapsedMillis, String boardConfig) {
+        if (moves < 0 || elapsedMillis < 0) {
+            throw new IllegalArgumentException("Moves and elapsed time must not be negative");
+        }
+        this.playerName = Objects.requireNonNull(playerName);
+        this.moves = moves;
+        this.elapsedMillis = elapsedMillis;
+        this.boardConfig = Objects.requireNonNull(boardConfig);
+    }
+
+    /**
+     * Returns the name of the player.
+     *
+     * @return the player name
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * Returns the number of moves made.
+     *
+     * @return the move count
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the time it took to solve the puzzle.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the starting board configuration.
+     *
+     * @return the board configuration
+     */
+    public String getBoardConfig() {
+        return boardConfig;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the reference object with which to compare
+     * @return {@code true} if this object is the same as the argument; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SolveRecord that = (SolveRecord) o;
+        return moves == that.moves && elapsedMillis == that.elapsedMillis &&
+                playerName.equals(that.playerName) && boardConfig.equals(that.boardConfig);
+    }
+
+    /**
+     * Returns a hash code value for the record.
+     *
+     * @return a hash code value for this record
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerName, moves, elapsedMillis, boardConfig);
+    }
+
+    /**
+     * Returns a string representation of the record.
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "SolveRecord{" +
+                "playerName='" + playerName + '\'' +
+                ", moves=" + moves +
+                ", elapsedMillis=" + elapsedMillis +
+                ", boardConfig='" + boardConfig + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains classes for storing and querying the results of solved puzzles.
+ */
+package leaderboard;
@@ -0,0 +1,59 @@
+package puzzle;
+
+/**
+ * Expands many packed boards at once, for breadth-first searches that process whole frontiers.
+ * <p>
+ * Successors are written in source-major order: the board reached by moving the piece on square {@code from}
+ * of {@code states[i]} is stored at {@code successors[from * count + i]}, or {@link #NO_MOVE} if that piece cannot
+ * move. This layout lets each square be handled for a whole batch of boards with contiguous loads and stores.
+ * <p>
+ * {@link #create(PackedBoard)} returns an implementation that uses the Vector API when it was built (the
+ * {@code vector} Maven profile) and the {@code jdk.incubator.vector} module is available (run with
+ * {@code --add-modules jdk.incubator.vector}), and a scalar one otherwise. Both produce the same results.
+ * Implementations keep scratch state, so each thread needs its own instance.
+ */
+public interface BatchExpander {
+
+    /**
+     * Marks a square whose piece cannot move. No packed board has all squares holding rooks and none empty.
+     */
+    long NO_MOVE = -1L;
+
+    /**
+     * Computes the successors of a batch of boards.
+     *
+     * @param states     the packed boards, each with exactly one empty square
+     * @param count      the number of boards to expand, starting at index 0
+     * @param successors the array to write to; must have room for {@code squares() * count} boards
+     */
+    void expand(long[] states, int count, long[] successors);
+
+    /**
+     * Checks which boards of a batch are equal to the goal.
+     *
+     * @param states  the packed boards
+     * @param count   the number of boards to check, starting at index 0
+     * @param goal    the packed goal board
+     * @param matches the array to write the results to
+     */
+    void matchGoal(long[] states, int count, long goal, boolean[] matches);
+
+    /**
+     * Creates the fastest available expander for a board size.
+     *
+     * @param codec the codec of the boards
+     * @return a vectorized expander if the Vector API is available, otherwise a scalar one
+     */
+    static BatchExpander create(PackedBoard codec) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (BatchExpander) Class.forName("puzzle.VectorBatchExpander")
+                        .getConstructor(PackedBoard.class)
+                        .newInstance(codec);
+            } catch (ReflectiveOperationException e) {
+                //Built without the vector profile
+            }
+        }
+        return new ScalarBatchExpander(codec);
+    }
+}
@@ -0,0 +1,289 @@
+package puzzle;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link PuzzleState} backed by bitboards, for boards of up to 8x8 squares.
+ * <p>
+ * The board is stored as one {@code long} occupancy mask per piece type, with bit {@code row * cols + col} set
+ * for every square holding such a piece. Instead of walking the board square by square, the pieces that can move
+ * to the empty square are found from precomputed attack masks: for each direction, the first piece on the ray
+ * from the empty square is the only one that can slide along it, and it is isolated with a single bit scan.
+ * Move generation thus takes a handful of bitwise operations regardless of the board size.
+ * <p>
+ * The moves follow the same rules as {@link PuzzleState}, and the two classes can be converted into each other.
+ */
+public class BitboardPuzzleState implements State<Move> {
+
+    private static final int MAX_SIDE = 8;
+
+    //The goal of the 2x3 puzzle: {'B', 'B', ' '}, {'R', 'R', 'K'}
+    private static final long GOAL_KINGS = 1L << 5;
+    private static final long GOAL_BISHOPS = 1L << 0 | 1L << 1;
+    private static final long GOAL_ROOKS = 1L << 3 | 1L << 4;
+
+    private static final Map<Integer, Geometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+    private final Geometry geometry;
+    private long kings;
+    private long bishops;
+    private long rooks;
+    private int empty;
+
+    //Attack masks of a board size, shared by all states of that size.
+    private static final class Geometry {
+        //Row and column steps of the rays; the first four are orthogonal, the last four diagonal.
+        private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+        private final int rows;
+        private final int cols;
+        private final long[] kingAttacks;
+        private final long[][] rays; //rays[direction][square]: the squares seen from the square in that direction
+        private final boolean[] ascending; //Whether square indexes grow along the direction
+
+        private Geometry(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            int squares = rows * cols;
+            kingAttacks = new long[squares];
+            rays = new long[DIRECTIONS.length][squares];
+            ascending = new boolean[DIRECTIONS.length];
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                int rowStep = DIRECTIONS[direction][0];
+                int colStep = DIRECTIONS[direction][1];
+                ascending[direction] = rowStep * cols + colStep > 0;
+                for (int square = 0; square < squares; square++) {
+                    int row = square / cols + rowStep;
+                    int col = square % cols + colStep;
+                    if (row >= 0 && row < rows && col >= 0 && col < cols) {
+                        kingAttacks[square] |= 1L << (row * cols + col);
+                    }
+                    for (; row >= 0 && row < rows && col >= 0 && col < cols; row += rowStep, col += colStep) {
+                        rays[direction][square] |= 1L << (row * cols + col);
+                    }
+                }
+            }
+        }
+
+        //The first occupied square on each ray from the square, for the given range of directions.
+        private long firstBlockers(int square, long occupied, int fromDirection, int toDirection) {
+            long result = 0;
+            for (int direction = fromDirection; direction < toDirection; direction++) {
+                long blockers = rays[direction][square] & occupied;
+                if (blockers != 0) {
+                    result |= ascending[direction] ? Long.lowestOneBit(blockers) : Long.highestOneBit(blockers);
+                }
+            }
+            return result;
+        }
+    }
+
+    private BitboardPuzzleState(Geometry geometry, long kings, long bishops, long rooks, int empty) {
+        this.geometry = geometry;
+        this.kings = kings;
+        this.bishops = bishops;
+        this.rooks = rooks;
+        this.empty = empty;
+    }
+
+    /**
+     * Constructs a {@code BitboardPuzzleState} with the initial configuration of the 2x3 puzzle.
+     */
+    public BitboardPuzzleState() {
+        this(new PuzzleState());
+    }
+
+    /**
+     * Constructs a {@code BitboardPuzzleState} with the same board as a {@link PuzzleState}.
+     *
+     * @param state the state to copy
+     * @throws IllegalArgumentException if the board is larger than 8x8 or does not have exactly one empty square
+     */
+    public BitboardPuzzleState(PuzzleState state) {
+        char[][] board = state.getBoard();
+        int rows = board.length;
+        int cols = board[0].length;
+        if (rows > MAX_SIDE || cols > MAX_SIDE) {
+            throw new IllegalArgumentException("Board is larger than 8x8");
+        }
+        geometry = GEOMETRIES.computeIfAbsent(rows * (MAX_SIDE + 1) + cols, key -> new Geometry(rows, cols));
+        empty = -1;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                long bit = 1L << (row * cols + col);
+                switch (board[row][col]) {
+                    case 'K' -> kings |= bit;
+                    case 'B' -> bishops |= bit;
+                    case 'R' -> rooks |= bit;
+                    case ' ' -> {
+                        if (empty >= 0) {
+                            throw new IllegalArgumentException("Board has more than one empty square");
+                        }
+                        empty = row * cols + col;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown piece: " + board[row][col]);
+                }
+            }
+        }
+        if (empty < 0) {
+            throw new IllegalArgumentException("Board has no empty square");
+        }
+    }
+
+    /**
+     * Returns the squares of the pieces that can move to the empty square, as a bit mask.
+     *
+     * @return a mask with bit {@code row * cols + col} set for every piece that has a legal move
+     */
+    public long legalSources() {
+        long occupied = kings | bishops | rooks;
+        return geometry.kingAttacks[empty] & kings
+                | geometry.firstBlockers(empty, occupied, 0, 4) & rooks
+                | geometry.firstBlockers(empty, occupied, 4, 8) & bishops;
+    }
+
+    private int square(Position position) {
+        return position.row() * geometry.cols + position.col();
+    }
+
+    private boolean isOnBoard(Position position) {
+        return position.row() >= 0 && position.row() < geometry.rows
+                && position.col() >= 0 && position.col() < geometry.cols;
+    }
+
+    /**
+     * Checks if the puzzle is solved. Like {@link PuzzleState#isSolved()}, only the 2x3 board has a solved
+     * configuration.
+     *
+     * @return {@code true} if the puzzle is solved; {@code false} otherwise
+     */
+    @Override
+    public boolean isSolved() {
+        return geometry.rows == 2 && geometry.cols == 3
+                && kings == GOAL_KINGS && bishops == GOAL_BISHOPS && rooks == GOAL_ROOKS;
+    }
+
+    /**
+     * Checks if a given move is legal, using the same rules as {@link PuzzleState#isLegalMove(Move)}.
+     *
+     * @param move the move to check
+     * @return {@code true} if the move is legal; {@code false} otherwise
+     */
+    @Override
+    public boolean isLegalMove(Move move) {
+        return isOnBoard(move.getFrom()) && isOnBoard(move.getTo()) && square(move.getTo()) == empty
+                && (legalSources() >>> square(move.getFrom()) & 1) != 0;
+    }
+
+    /**
+     * Executes a legal move on the board.
+     *
+     * @param move the move to execute
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    @Override
+    public void makeMove(Move move) {
+        if (!isLegalMove(move)) {
+            throw new IllegalArgumentException("Move is not legal");
+        }
+        long change = 1L << square(move.getFrom()) | 1L << empty;
+        long from = 1L << square(move.getFrom());
+        if ((kings & from) != 0) {
+            kings ^= change;
+        } else if ((bishops & from) != 0) {
+            bishops ^= change;
+        } else {
+            rooks ^= change;
+        }
+        empty = square(move.getFrom());
+    }
+
+    /**
+     * Returns a set of all legal moves from the current board configuration.
+     *
+     * @return a set of legal moves
+     */
+    @Override
+    public Set<Move> getLegalMoves() {
+        Set<Move> legalMoves = new HashSet<>();
+        Position to = new Position(empty / geometry.cols, empty % geometry.cols);
+        for (long sources = legalSources(); sources != 0; sources &= sources - 1) {
+            int from = Long.numberOfTrailingZeros(sources);
+            legalMoves.add(new Move(new Position(from / geometry.cols, from % geometry.cols), to));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Returns a copy of the board. Unlike {@link PuzzleState#getBoard()}, changes to the array do not affect
+     * this state.
+     *
+     * @return the puzzle board
+     */
+    public char[][] getBoard() {
+        char[][] board = new char[geometry.rows][geometry.cols];
+        for (int square = 0; square < geometry.rows * geometry.cols; square++) {
+            long bit = 1L << square;
+            board[square / geometry.cols][square % geometry.cols] =
+                    (kings & bit) != 0 ? 'K' : (bishops & bit) != 0 ? 'B' : (rooks & bit) != 0 ? 'R' : ' ';
+        }
+        return board;
+    }
+
+    /**
+     * Converts this state into a {@link PuzzleState}.
+     *
+     * @return a new {@code PuzzleState} with the same board
+     */
+    public PuzzleState toPuzzleState() {
+        return new PuzzleState(getBoard(), new Position(empty / geometry.cols, empty % geometry.cols));
+    }
+
+    /**
+     * Creates and returns a copy of this state.
+     *
+     * @return a clone of this instance
+     */
+    @Override
+    public BitboardPuzzleState clone() {
+        return new BitboardPuzzleState(geometry, kings, bishops, rooks, empty);
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the reference object with which to compare
+     * @return {@code true} if this object is the same as the argument; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BitboardPuzzleState that = (BitboardPuzzleState) o;
+        return geometry == that.geometry && kings == that.kings && bishops == that.bishops && rooks == that.rooks;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return a hash code value for this object
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(geometry.rows, geometry.cols, kings, bishops, rooks);
+    }
+
+    /**
+     * Returns a string representation of the object, in the same format as {@link PuzzleState#toString()}.
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return toPuzzleState().toString();
+    }
+}
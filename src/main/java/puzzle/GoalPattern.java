@@ -0,0 +1,231 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * A goal that accepts every packed board matching one of several patterns.
+ * <p>
+ * A pattern is written like a board, see {@link PackedBoard#parse(String)}, with {@code '?'} for a square whose
+ * content does not matter; alternatives are separated by {@code '|'}. For example, {@code "??K/???"} accepts every
+ * board with the king in the top right corner, and {@code "BB./RRK|BB./RKR"} accepts two boards.
+ * <p>
+ * Each pattern is compiled into a mask, with both bits of every required square set, and the value that the
+ * masked board must have, so a board matches if {@code (board & mask) == value}. Patterns with the same mask are
+ * grouped, and the values of a group are kept in an open-addressed hash table at most half full, so every group
+ * costs one AND and usually one probe of its table, however many boards it accepts.
+ */
+public final class GoalPattern {
+
+    private static final long FREE = 0;
+
+    private final PackedBoard codec;
+    private final long[] masks; //One per group, in the order of the first pattern of each group
+    private final long[][] values; //Sorted, per group
+    private final long[][] tables; //The values of each group with open addressing; FREE marks an empty slot
+    private final boolean[] acceptsZero; //Zero itself is tracked separately, per group
+
+    private GoalPattern(PackedBoard codec, Map<Long, TreeSet<Long>> groups) {
+        this.codec = codec;
+        this.masks = new long[groups.size()];
+        this.values = new long[groups.size()][];
+        this.tables = new long[groups.size()][];
+        this.acceptsZero = new boolean[groups.size()];
+        int group = 0;
+        for (Map.Entry<Long, TreeSet<Long>> entry : groups.entrySet()) {
+            masks[group] = entry.getKey();
+            values[group] = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            tables[group] = new long[Integer.highestOneBit(values[group].length) * 4];
+            for (long value : values[group]) {
+                if (value == FREE) {
+                    acceptsZero[group] = true;
+                } else {
+                    insert(tables[group], value);
+                }
+            }
+            group++;
+        }
+    }
+
+    private static void insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != FREE) {
+            slot = slot + 1 & mask;
+        }
+        table[slot] = value;
+    }
+
+    private static boolean contains(long[] table, long value) {
+        int mask = table.length - 1;
+        for (int slot = mix(value) & mask; ; slot = slot + 1 & mask) {
+            if (table[slot] == value) {
+                return true;
+            }
+            if (table[slot] == FREE) {
+                return false;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    /**
+     * Creates a goal that accepts exactly one board.
+     *
+     * @param codec the codec of the boards
+     * @param board the packed goal board
+     * @return the goal
+     */
+    public static GoalPattern exact(PackedBoard codec, long board) {
+        long mask = codec.squares() == PackedBoard.MAX_SQUARES ? -1L : (1L << 2 * codec.squares()) - 1;
+        Map<Long, TreeSet<Long>> groups = new LinkedHashMap<>();
+        groups.computeIfAbsent(mask, ignored -> new TreeSet<>()).add(board & mask);
+        return new GoalPattern(codec, groups);
+    }
+
+    /**
+     * Parses a goal written as patterns, for example {@code "??K/???"}.
+     *
+     * @param codec the codec of the boards
+     * @param text  the patterns, separated by {@code '|'}
+     * @return the goal
+     * @throws IllegalArgumentException if a pattern does not describe a board of the size of the codec
+     */
+    public static GoalPattern parse(PackedBoard codec, String text) {
+        Map<Long, TreeSet<Long>> groups = new LinkedHashMap<>();
+        for (String pattern : text.split("\\|")) {
+            String[] lines = pattern.trim().split("/");
+            if (lines.length != codec.rows()) {
+                throw new IllegalArgumentException("Expected " + codec.rows() + " rows: " + pattern);
+            }
+            long mask = 0;
+            long value = 0;
+            for (int row = 0; row < codec.rows(); row++) {
+                if (lines[row].length() != codec.cols()) {
+                    throw new IllegalArgumentException("Expected " + codec.cols() + " columns: " + pattern);
+                }
+                for (int col = 0; col < codec.cols(); col++) {
+                    char piece = lines[row].charAt(col);
+                    if (piece != '?') {
+                        int shift = 2 * (row * codec.cols() + col);
+                        mask |= 3L << shift;
+                        value |= (long) PackedBoard.code(piece) << shift;
+                    }
+                }
+            }
+            groups.computeIfAbsent(mask, ignored -> new TreeSet<>()).add(value);
+        }
+        return new GoalPattern(codec, groups);
+    }
+
+    /**
+     * Creates a goal that accepts the boards accepted by any of several goals.
+     *
+     * @param goals the goals, all for boards of the same size
+     * @return the goal
+     * @throws IllegalArgumentException if no goal is given or the goals are for boards of different sizes
+     */
+    public static GoalPattern anyOf(GoalPattern... goals) {
+        if (goals.length == 0) {
+            throw new IllegalArgumentException("No goal given");
+        }
+        Map<Long, TreeSet<Long>> groups = new LinkedHashMap<>();
+        for (GoalPattern goal : goals) {
+            if (goal.codec.rows() != goals[0].codec.rows() || goal.codec.cols() != goals[0].codec.cols()) {
+                throw new IllegalArgumentException("Goals for different board sizes");
+            }
+            for (int group = 0; group < goal.masks.length; group++) {
+                TreeSet<Long> accepted = groups.computeIfAbsent(goal.masks[group], ignored -> new TreeSet<>());
+                Arrays.stream(goal.values[group]).forEach(accepted::add);
+            }
+        }
+        return new GoalPattern(goals[0].codec, groups);
+    }
+
+    /**
+     * Returns the codec of the boards of this goal.
+     *
+     * @return the codec
+     */
+    public PackedBoard getCodec() {
+        return codec;
+    }
+
+    /**
+     * Checks if a board is accepted by this goal.
+     *
+     * @param packed the packed board
+     * @return {@code true} if the board matches one of the patterns; {@code false} otherwise
+     */
+    public boolean matches(long packed) {
+        for (int group = 0; group < masks.length; group++) {
+            long masked = packed & masks[group];
+            if (masked == FREE ? acceptsZero[group] : contains(tables[group], masked)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one. Goals are equal if they are for boards of the
+     * same size and were compiled to the same patterns, in the same order.
+     *
+     * @param o the reference object with which to compare
+     * @return {@code true} if this object is the same as the argument; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GoalPattern that = (GoalPattern) o;
+        return codec.rows() == that.codec.rows() && codec.cols() == that.codec.cols()
+                && Arrays.equals(masks, that.masks) && Arrays.deepEquals(values, that.values);
+    }
+
+    /**
+     * Returns a hash code value for the goal.
+     *
+     * @return a hash code value for this goal
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(codec.rows(), codec.cols(), Arrays.hashCode(masks), Arrays.deepHashCode(values));
+    }
+
+    /**
+     * Returns the patterns of this goal, in the form accepted by {@link #parse(PackedBoard, String)}.
+     *
+     * @return the patterns separated by {@code '|'}
+     */
+    @Override
+    public String toString() {
+        StringJoiner patterns = new StringJoiner("|");
+        for (int group = 0; group < masks.length; group++) {
+            for (long value : values[group]) {
+                StringBuilder pattern = new StringBuilder(codec.rows() * (codec.cols() + 1));
+                for (int square = 0; square < codec.squares(); square++) {
+                    if (square > 0 && square % codec.cols() == 0) {
+                        pattern.append('/');
+                    }
+                    int code = PackedBoard.codeAt(value, square);
+                    if ((masks[group] >>> 2 * square & 3) == 0) {
+                        pattern.append('?');
+                    } else {
+                        pattern.append(code == PackedBoard.EMPTY ? '.' : PackedBoard.piece(code));
+                    }
+                }
+                patterns.add(pattern);
+            }
+        }
+        return patterns.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package puzzle;
+
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of a {@link PuzzleState}, stored as a packed board.
+ * <p>
+ * A {@code PuzzleState} is mutable and shares its board array with callers of {@link PuzzleState#getBoard()},
+ * so handing it to another thread requires a defensive copy. A snapshot can instead be shared freely between
+ * the GUI, background solvers and caches: it is a single {@code long} plus the board size, and all its fields
+ * are final. Use {@link PuzzleState#snapshot()} to take one and {@link #toState()} to get a mutable copy back.
+ */
+public final class PuzzleSnapshot {
+
+    private static final long SOLVED = PackedBoard.of(2, 3).parse("BB./RRK");
+
+    private final long packed;
+    private final int rows;
+    private final int cols;
+
+    private PuzzleSnapshot(long packed, int rows, int cols) {
+        this.packed = packed;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Takes a snapshot of a state.
+     *
+     * @param state the state
+     * @return the snapshot
+     * @throws IllegalArgumentException if the board has more than {@value PackedBoard#MAX_SQUARES} squares
+     */
+    public static PuzzleSnapshot of(PuzzleState state) {
+        char[][] board = state.getBoard();
+        int rows = board.length;
+        int cols = board[0].length;
+        return new PuzzleSnapshot(PackedBoard.of(rows, cols).pack(board), rows, cols);
+    }
+
+    /**
+     * Creates a snapshot of a packed board.
+     *
+     * @param codec  the codec of the board
+     * @param packed the packed board
+     * @return the snapshot
+     */
+    public static PuzzleSnapshot of(PackedBoard codec, long packed) {
+        return new PuzzleSnapshot(packed, codec.rows(), codec.cols());
+    }
+
+    /**
+     * Returns a new mutable state with the board of this snapshot.
+     *
+     * @return a new {@link PuzzleState}
+     */
+    public PuzzleState toState() {
+        return getCodec().toState(packed);
+    }
+
+    /**
+     * Returns the codec of the board of this snapshot.
+     *
+     * @return the codec
+     */
+    public PackedBoard getCodec() {
+        return PackedBoard.of(rows, cols);
+    }
+
+    /**
+     * Returns the packed board.
+     *
+     * @return the packed board
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * Returns the piece on a square.
+     *
+     * @param position the position of the square
+     * @return the piece ('K', 'B', 'R') or ' ' for the empty square
+     */
+    public char pieceAt(Position position) {
+        return PackedBoard.piece(PackedBoard.codeAt(packed, position.row() * cols + position.col()));
+    }
+
+    /**
+     * Returns the position of the empty square.
+     *
+     * @return the position of the empty square
+     */
+    public Position getEmptyPosition() {
+        int empty = getCodec().emptySquare(packed);
+        return new Position(empty / cols, empty % cols);
+    }
+
+    /**
+     * Checks if the puzzle is solved, like {@link PuzzleState#isSolved()}.
+     *
+     * @return {@code true} if the puzzle is solved; {@code false} otherwise
+     */
+    public boolean isSolved() {
+        return rows == 2 && cols == 3 && packed == SOLVED;
+    }
+
+    /**
+     * Checks if the board is accepted by a goal, for puzzle variants with goals other than the standard one.
+     *
+     * @param goal the goal, for boards of the size of this one
+     * @return {@code true} if the board matches the goal; {@code false} otherwise
+     */
+    public boolean isSolved(GoalPattern goal) {
+        return goal.matches(packed);
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the reference object with which to compare
+     * @return {@code true} if this object is the same as the argument; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PuzzleSnapshot that = (PuzzleSnapshot) o;
+        return packed == that.packed && rows == that.rows && cols == that.cols;
+    }
+
+    /**
+     * Returns a hash code value for the snapshot.
+     *
+     * @return a hash code value for this snapshot
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(packed, rows, cols);
+    }
+
+    /**
+     * Returns a string representation of the snapshot, for example {@code "KBB/RR."}.
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return getCodec().format(packed);
+    }
+}
@@ -8,6 +8,7 @@ import java.util.StringJoiner;
 /**
  * Represents the state of a puzzle game.
  * The puzzle board is a 2x3 grid where each cell can contain a piece ('K', 'B', 'R') or be empty (' ').
+ * Boards of other sizes can be created with {@link #PuzzleState(char[][], Position)}; the moves follow the same rules.
  * The goal is to arrange the pieces in a specific solved configuration.
  */
 
@@ -18,7 +19,12 @@ public class PuzzleState implements State<Move> {
 
     private static final int ROWS = 2;
     private static final int COLS = 3;
+    //The solved configuration, compiled like the goals of the solvers.
+    private static final GoalPattern GOAL = GoalPattern.parse(PackedBoard.of(ROWS, COLS), "BB./RRK");
 
+    //Dimensions of this board; ROWS x COLS unless a board of another size was given.
+    private final int rows;
+    private final int cols;
     //A 2D array representing the puzzle board.
     //Each cell contains a piece ('K', 'B', 'R') or an empty space (' ').
     private final char[][] board;
@@ -41,6 +47,8 @@ public class PuzzleState implements State<Move> {
                 {'R', 'R', ' '}
         };
         emptyPosition = new Position(1, 2);
+        rows = ROWS;
+        cols = COLS;
     }
 
     /**
@@ -56,6 +64,8 @@ public class PuzzleState implements State<Move> {
     public PuzzleState(char[][] board, Position emptyPosition) {
         this.board = board;
         this.emptyPosition = emptyPosition;
+        rows = board.length;
+        cols = board[0].length;
     }
 
     /**
@@ -76,6 +86,7 @@ public class PuzzleState implements State<Move> {
      *     {'B', 'B', ' '}
      *     {'R', 'R', 'K'}
      * </pre>
+     * Boards of other sizes have no solved configuration.
      *
      * @return {@code true} if the puzzle is solved; {@code false} otherwise
      */
@@ -83,8 +94,7 @@ public class PuzzleState implements State<Move> {
     //
     @Override
     public boolean isSolved() {
-        return board[0][0] == 'B' && board[0][1] == 'B' && board[0][2] == ' ' &&
-                board[1][0] == 'R' && board[1][1] == 'R' && board[1][2] == 'K';
+        return rows == ROWS && cols == COLS && GOAL.matches(PackedBoard.of(rows, cols).pack(this));
     }
 
     /**
@@ -138,7 +148,7 @@ public class PuzzleState implements State<Move> {
      * @return {@code true} if the position is on the board; {@code false} otherwise
      */
     public boolean isOnBoard(Position position) {
-        return position.row() >= 0 && position.row() < ROWS && position.col() >= 0 && position.col() < COLS;
+        return position.row() >= 0 && position.row() < rows && position.col() >= 0 && position.col() < cols;
     }
     //index not negative + index not  less than the total number of rows/columns on the board
 
@@ -201,8 +211,8 @@ public class PuzzleState implements State<Move> {
     public Set<Move> getLegalMoves() {
         Set<Move> legalMoves = new HashSet<>(); //Initializes an empty set legalMoves to store all the valid moves.
         //Uses a HashSet to ensure no duplicate moves
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 Position from = new Position(row, col); //Creates a Position object for the current cell (row, col) on the board.
                 Position to = emptyPosition; //Defines to as the current empty position on the board
                 Move move = new Move(from, to); //Creates a Move object representing moving the piece from from to to.
@@ -214,6 +224,15 @@ public class PuzzleState implements State<Move> {
         return legalMoves;
     }
 
+    /**
+     * Returns an immutable snapshot of the current board, which can be shared between threads.
+     *
+     * @return a {@link PuzzleSnapshot} of this state
+     */
+    public PuzzleSnapshot snapshot() {
+        return PuzzleSnapshot.of(this);
+    }
+
     /**
      * Creates and returns a copy of this {@code PuzzleState}.
      * The copy will have the same board configuration and empty position as the original.
@@ -222,9 +241,9 @@ public class PuzzleState implements State<Move> {
      */
     @Override
     public PuzzleState clone() {
-        char[][] newBoard = new char[ROWS][COLS];
-        for (int row = 0; row < ROWS; row++) {
-            System.arraycopy(board[row], 0, newBoard[row], 0, COLS);
+        char[][] newBoard = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(board[row], 0, newBoard[row], 0, cols);
         }
         return new PuzzleState(newBoard, emptyPosition);
     }
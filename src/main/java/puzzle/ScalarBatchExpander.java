@@ -0,0 +1,63 @@
+package puzzle;
+
+/**
+ * A {@link BatchExpander} that handles one board at a time with {@link PackedBoard#isLegalMove(long, int, int)}.
+ * It works on every JVM and serves as the reference for {@link VectorBatchExpander}.
+ */
+public class ScalarBatchExpander implements BatchExpander {
+
+    private final PackedBoard codec;
+
+    /**
+     * Constructs a {@code ScalarBatchExpander} for a board size.
+     *
+     * @param codec the codec of the boards
+     */
+    public ScalarBatchExpander(PackedBoard codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Computes the successors of a batch of boards.
+     *
+     * @param states     the packed boards, each with exactly one empty square
+     * @param count      the number of boards to expand, starting at index 0
+     * @param successors the array to write to; must have room for {@code squares() * count} boards
+     */
+    @Override
+    public void expand(long[] states, int count, long[] successors) {
+        expand(states, 0, count, successors);
+    }
+
+    //Expands the boards from start (inclusive) to count (exclusive); used for the tail of vectorized batches.
+    void expand(long[] states, int start, int count, long[] successors) {
+        for (int i = start; i < count; i++) {
+            long state = states[i];
+            int empty = codec.emptySquare(state);
+            for (int from = 0; from < codec.squares(); from++) {
+                successors[from * count + i] = codec.isLegalMove(state, from, empty)
+                        ? PackedBoard.move(state, from, empty)
+                        : NO_MOVE;
+            }
+        }
+    }
+
+    /**
+     * Checks which boards of a batch are equal to the goal.
+     *
+     * @param states  the packed boards
+     * @param count   the number of boards to check, starting at index 0
+     * @param goal    the packed goal board
+     * @param matches the array to write the results to
+     */
+    @Override
+    public void matchGoal(long[] states, int count, long goal, boolean[] matches) {
+        matchGoal(states, 0, count, goal, matches);
+    }
+
+    void matchGoal(long[] states, int start, int count, long goal, boolean[] matches) {
+        for (int i = start; i < count; i++) {
+            matches[i] = states[i] == goal;
+        }
+    }
+}
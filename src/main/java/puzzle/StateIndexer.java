@@ -0,0 +1,138 @@
+package puzzle;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Maps the packed boards with a fixed multiset of pieces one-to-one onto the indexes {@code 0 .. size() - 1}.
+ * <p>
+ * A board is a permutation of its multiset of pieces, and its index is the rank of that permutation in
+ * lexicographic order of the piece codes. Indexes let tables such as distance databases be stored as plain
+ * arrays with one entry per board instead of hash maps. Ranking and unranking take {@code O(squares)} time.
+ */
+public class StateIndexer {
+
+    private final int squares;
+    private final int[] counts;
+    private final long size;
+
+    /**
+     * Constructs a {@code StateIndexer} for boards with the specified number of each piece.
+     *
+     * @param squares the number of squares of the board
+     * @param counts  the number of squares holding each code, indexed by the codes of {@link PackedBoard}
+     * @throws IllegalArgumentException if the counts do not add up to the number of squares,
+     *                                  or if there are too many boards to index with a {@code long}
+     */
+    public StateIndexer(int squares, int[] counts) {
+        if (counts.length != 4 || Arrays.stream(counts).sum() != squares || Arrays.stream(counts).min().orElse(0) < 0) {
+            throw new IllegalArgumentException("Piece counts do not match the board: " + Arrays.toString(counts));
+        }
+        BigInteger total = factorial(squares);
+        for (int count : counts) {
+            total = total.divide(factorial(count));
+        }
+        //Ranking multiplies partial sizes by up to squares, which must not overflow.
+        if (total.multiply(BigInteger.valueOf(squares)).bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Too many boards to index: " + total);
+        }
+        this.squares = squares;
+        this.counts = counts.clone();
+        this.size = total.longValue();
+    }
+
+    /**
+     * Creates a {@code StateIndexer} for boards with the same pieces as the given board.
+     *
+     * @param codec  the codec of the board
+     * @param packed a packed board
+     * @return a {@code StateIndexer} for all arrangements of the pieces of the board
+     */
+    public static StateIndexer forBoard(PackedBoard codec, long packed) {
+        int[] counts = new int[4];
+        for (int square = 0; square < codec.squares(); square++) {
+            counts[PackedBoard.codeAt(packed, square)]++;
+        }
+        return new StateIndexer(codec.squares(), counts);
+    }
+
+    private static BigInteger factorial(int n) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 2; i <= n; i++) {
+            result = result.multiply(BigInteger.valueOf(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of boards, which is one more than the largest index.
+     *
+     * @return the number of boards
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Checks if a packed board has the pieces of this indexer, which is required for it to have an index.
+     *
+     * @param packed a packed board
+     * @return {@code true} if the board holds the same number of each piece; {@code false} otherwise
+     */
+    public boolean contains(long packed) {
+        int[] remaining = counts.clone();
+        for (int square = 0; square < squares; square++) {
+            if (--remaining[PackedBoard.codeAt(packed, square)] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of a packed board.
+     *
+     * @param packed a packed board with the pieces of this indexer
+     * @return the index of the board
+     */
+    public long rank(long packed) {
+        int[] remaining = counts.clone();
+        long permutations = size; //Arrangements of the remaining pieces on the remaining squares
+        long rank = 0;
+        for (int square = 0, left = squares; square < squares; square++, left--) {
+            int code = PackedBoard.codeAt(packed, square);
+            //Skip all arrangements that have a smaller code on this square
+            for (int smaller = 0; smaller < code; smaller++) {
+                rank += permutations * remaining[smaller] / left;
+            }
+            permutations = permutations * remaining[code] / left;
+            remaining[code]--;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the packed board of an index.
+     *
+     * @param rank an index between {@code 0} and {@code size() - 1}
+     * @return the packed board with the index
+     */
+    public long unrank(long rank) {
+        int[] remaining = counts.clone();
+        long permutations = size;
+        long packed = 0;
+        for (int square = 0, left = squares; square < squares; square++, left--) {
+            int code = 0;
+            long block = permutations * remaining[0] / left;
+            while (rank >= block) {
+                rank -= block;
+                code++;
+                block = permutations * remaining[code] / left;
+            }
+            packed |= (long) code << (2 * square);
+            permutations = block;
+            remaining[code]--;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,247 @@
+package solver;
+
+import org.tinylog.Logger;
+import puzzle.GoalPattern;
+import puzzle.PackedBoard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Solves the puzzle within a time and memory budget, returning the best solution found when the budget runs out.
+ * <p>
+ * The solver first runs a beam search, which keeps only the most promising boards of each depth and usually finds
+ * a solution quickly. It then runs weighted A* with decreasing weights, pruning every board that cannot lead to a
+ * shorter solution than the best one so far. Each run improves on the previous one; a run with weight 1 that
+ * finishes proves that the best solution is optimal. The search stops as soon as the time or memory budget is
+ * exhausted or the cancellation token is set. The open list is not checkpointed: the search is bounded by its
+ * budget, and a new call starts over.
+ */
+public class AnytimeSolver {
+
+    private static final double[] WEIGHTS = {5, 3, 2, 1.5, 1.25, 1};
+    private static final int DEFAULT_BEAM_WIDTH = 256;
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int REPORT_INTERVAL = 1 << 16;
+
+    private final PackedBoard codec;
+    private final Heuristic heuristic;
+    private final int beamWidth;
+
+    //A board reached by the search, with the path that led to it.
+    private static final class Node {
+        private final long state;
+        private final int g;
+        private final double f;
+        private final Node parent;
+
+        private Node(long state, int g, double f, Node parent) {
+            this.state = state;
+            this.g = g;
+            this.f = f;
+            this.parent = parent;
+        }
+
+        private Solution toSolution() {
+            long[] states = new long[g + 1];
+            for (Node node = this; node != null; node = node.parent) {
+                states[node.g] = node.state;
+            }
+            return new Solution(states);
+        }
+    }
+
+    //The state of one call to solve.
+    private static final class Run {
+        private final GoalPattern goal;
+        private final long deadline;
+        private final long maxNodes;
+        private final CancellationToken token;
+        private final ProgressListener listener;
+        private Solution best;
+        private long expandedNodes;
+        private long nextTimeCheck; //The clock is read once expandedNodes reaches this
+        private SearchResult.Status status;
+
+        private Run(GoalPattern goal, SearchBudget budget, CancellationToken token, ProgressListener listener) {
+            this.goal = goal;
+            this.deadline = System.nanoTime() + budget.getTimeLimit().toNanos();
+            this.maxNodes = budget.getMaxNodes();
+            this.token = token;
+            this.listener = listener;
+        }
+
+        //Checks the budget; once it is exhausted, the status says why.
+        private boolean shouldStop(long storedNodes) {
+            if (status != null) {
+                return true;
+            }
+            if (token.isCancelled()) {
+                status = SearchResult.Status.CANCELLED;
+            } else if (storedNodes > maxNodes) {
+                status = SearchResult.Status.MEMORY_LIMIT;
+            } else if (expandedNodes >= nextTimeCheck) {
+                nextTimeCheck = expandedNodes + CHECK_INTERVAL;
+                if (System.nanoTime() - deadline > 0) {
+                    status = SearchResult.Status.TIME_LIMIT;
+                }
+            }
+            return status != null;
+        }
+
+        private void offer(Node node) {
+            if (best == null || node.g < best.length()) {
+                best = node.toSolution();
+                Logger.info("Found a solution of {} moves after {} expansions", best.length(), expandedNodes);
+                listener.onProgress(node.g, expandedNodes, Optional.of(best));
+            }
+        }
+
+        private void expanded(int depth) {
+            expandedNodes++;
+            if (expandedNodes % REPORT_INTERVAL == 0) {
+                listener.onProgress(depth, expandedNodes, Optional.ofNullable(best));
+            }
+        }
+    }
+
+    /**
+     * Constructs an {@code AnytimeSolver} with the specified heuristic and the default beam width.
+     *
+     * @param codec     the codec of the boards
+     * @param heuristic the heuristic guiding the search; must never overestimate for optimality to be proved
+     */
+    public AnytimeSolver(PackedBoard codec, Heuristic heuristic) {
+        this(codec, heuristic, DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Constructs an {@code AnytimeSolver} with the specified heuristic and beam width.
+     *
+     * @param codec     the codec of the boards
+     * @param heuristic the heuristic guiding the search; must never overestimate for optimality to be proved
+     * @param beamWidth the number of boards kept per depth by the initial beam search
+     */
+    public AnytimeSolver(PackedBoard codec, Heuristic heuristic, int beamWidth) {
+        this.codec = codec;
+        this.heuristic = heuristic;
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Searches for the shortest solution until it is proved optimal or the budget runs out.
+     *
+     * @param start    the packed start board
+     * @param goal     the packed goal board
+     * @param budget   the time and memory budget
+     * @param token    the token that cancels the search
+     * @param listener the listener receiving progress reports
+     * @return the best solution found and why the search stopped
+     */
+    public SearchResult solve(long start, long goal, SearchBudget budget, CancellationToken token,
+                              ProgressListener listener) {
+        return solve(start, GoalPattern.exact(codec, goal), budget, token, listener);
+    }
+
+    /**
+     * Searches for the shortest solution to any board accepted by a goal until it is proved optimal or the budget
+     * runs out. Every run stops at the first accepted board it reaches.
+     *
+     * @param start    the packed start board
+     * @param goal     the goal
+     * @param budget   the time and memory budget
+     * @param token    the token that cancels the search
+     * @param listener the listener receiving progress reports
+     * @return the best solution found and why the search stopped
+     */
+    public SearchResult solve(long start, GoalPattern goal, SearchBudget budget, CancellationToken token,
+                              ProgressListener listener) {
+        Run run = new Run(goal, budget, token, listener);
+        beamSearch(run, start);
+        boolean optimal = false;
+        for (int i = 0; i < WEIGHTS.length && !optimal && run.status == null; i++) {
+            optimal = weightedAStar(run, start, WEIGHTS[i]);
+        }
+        SearchResult.Status status = run.status == null ? SearchResult.Status.COMPLETED : run.status;
+        listener.onProgress(run.best == null ? 0 : run.best.length(), run.expandedNodes, Optional.ofNullable(run.best));
+        return new SearchResult(run.best, optimal, status, run.expandedNodes);
+    }
+
+    private void beamSearch(Run run, long start) {
+        Set<Long> seen = new HashSet<>();
+        seen.add(start);
+        List<Node> layer = List.of(new Node(start, 0, 0, null));
+        long[] successors = new long[codec.squares()];
+        while (!layer.isEmpty()) {
+            List<Node> candidates = new ArrayList<>();
+            for (Node node : layer) {
+                if (run.shouldStop(seen.size())) {
+                    return;
+                }
+                if (run.goal.matches(node.state)) {
+                    run.offer(node);
+                    return;
+                }
+                run.expanded(node.g);
+                int count = codec.successors(node.state, successors);
+                for (int i = 0; i < count; i++) {
+                    int h = heuristic.estimate(successors[i]);
+                    if (h < Heuristic.UNREACHABLE && seen.add(successors[i])) {
+                        candidates.add(new Node(successors[i], node.g + 1, h, node));
+                    }
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(node -> node.f));
+            layer = candidates.subList(0, Math.min(beamWidth, candidates.size()));
+        }
+    }
+
+    //Returns true if the run finished, which proves that the best solution is optimal.
+    private boolean weightedAStar(Run run, long start, double weight) {
+        Logger.debug("Weighted A* with weight {}", weight);
+        PriorityQueue<Node> open = new PriorityQueue<>(Comparator
+                .comparingDouble((Node node) -> node.f)
+                .thenComparingInt(node -> -node.g));
+        Map<Long, Integer> bestG = new HashMap<>();
+        open.add(new Node(start, 0, weight * heuristic.estimate(start), null));
+        bestG.put(start, 0);
+        long[] successors = new long[codec.squares()];
+        while (!open.isEmpty()) {
+            if (run.shouldStop(bestG.size())) {
+                return false;
+            }
+            Node node = open.poll();
+            if (bestG.get(node.state) < node.g) {
+                continue;
+            }
+            //Only boards that can still lead to a shorter solution are worth expanding.
+            if (run.best != null && node.g + heuristic.estimate(node.state) >= run.best.length()) {
+                continue;
+            }
+            if (run.goal.matches(node.state)) {
+                //Restarting with a smaller weight improves the solution faster than continuing this run.
+                run.offer(node);
+                return weight == 1;
+            }
+            run.expanded(node.g);
+            int count = codec.successors(node.state, successors);
+            for (int i = 0; i < count; i++) {
+                int g = node.g + 1;
+                Integer known = bestG.get(successors[i]);
+                int h = heuristic.estimate(successors[i]);
+                if ((known == null || g < known) && h < Heuristic.UNREACHABLE) {
+                    bestG.put(successors[i], g);
+                    open.add(new Node(successors[i], g, g + weight * h, node));
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package solver;
+
+/**
+ * Lets one thread ask a running search to stop. The search returns its best result so far as soon as it notices.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests the search to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if the search has been asked to stop.
+     *
+     * @return {@code true} if {@link #cancel()} has been called; {@code false} otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
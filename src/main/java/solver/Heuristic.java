@@ -0,0 +1,43 @@
+package solver;
+
+/**
+ * Estimates the number of moves needed to reach the goal from a packed board.
+ * An estimate must never exceed the actual distance, so that solvers using it still find optimal solutions.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /**
+     * The estimate of a board from which the goal cannot be reached.
+     */
+    int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+    /**
+     * A heuristic that always estimates zero moves.
+     */
+    Heuristic ZERO = state -> 0;
+
+    /**
+     * Estimates the distance of a board to the goal.
+     *
+     * @param state the packed board
+     * @return a lower bound on the number of moves to the goal, or {@link #UNREACHABLE}
+     */
+    int estimate(long state);
+
+    /**
+     * Combines heuristics by taking the largest of their estimates.
+     *
+     * @param heuristics the heuristics to combine
+     * @return a heuristic that is at least as accurate as each of the given ones
+     */
+    static Heuristic max(Heuristic... heuristics) {
+        return state -> {
+            int max = 0;
+            for (Heuristic heuristic : heuristics) {
+                max = Math.max(max, heuristic.estimate(state));
+            }
+            return max;
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package solver;
+
+import org.tinylog.Logger;
+import puzzle.GoalPattern;
+import puzzle.PackedBoard;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Solves the puzzle with iterative-deepening A* (IDA*) on packed boards.
+ * <p>
+ * IDA* runs depth-first searches with an increasing bound on the estimated solution length, so it only keeps
+ * the current path in memory. It finds optimal solutions as long as the heuristic never overestimates.
+ * Moves that undo the previous move are skipped. The goal may be a {@link GoalPattern} accepting many boards; the
+ * search stops at the first board that matches, and the heuristic must then not overestimate the distance to
+ * the nearest matching board.
+ * <p>
+ * Since the move graph is full of cycles, the same boards are searched over and over, both within an iteration
+ * and by every following one. With a {@link TranspositionTable}, the solver remembers for each searched board
+ * the smallest estimate that exceeded the bound below it, which is a better lower bound on its distance than the
+ * heuristic's. A board reached again is then cut off at once unless the bound has grown past that estimate.
+ * The skipped undo move is counted with the estimate of the previous board, so the stored bounds stay valid
+ * for every path leading to the board. The table may be shared with other solvers searching for the same goal;
+ * a search for another goal empties it first, see {@link TranspositionTable#prepare(GoalPattern)}.
+ */
+public class IdaStarSolver {
+
+    private static final int FOUND = -1;
+
+    private final PackedBoard codec;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+
+    private GoalPattern goal;
+    private long[] path;
+    private long[][] successors;
+    private int solutionDepth;
+    private long expandedNodes;
+
+    /**
+     * Constructs an {@code IdaStarSolver} for the specified board size and heuristic.
+     *
+     * @param codec     the codec of the boards
+     * @param heuristic the heuristic used to prune the search
+     */
+    public IdaStarSolver(PackedBoard codec, Heuristic heuristic) {
+        this(codec, heuristic, null);
+    }
+
+    /**
+     * Constructs an {@code IdaStarSolver} that remembers searched boards in a transposition table.
+     *
+     * @param codec     the codec of the boards
+     * @param heuristic the heuristic used to prune the search
+     * @param table     the transposition table, or {@code null} to search without one
+     */
+    public IdaStarSolver(PackedBoard codec, Heuristic heuristic, TranspositionTable table) {
+        this.codec = codec;
+        this.heuristic = heuristic;
+        this.table = table;
+    }
+
+    /**
+     * Finds an optimal solution.
+     *
+     * @param start the packed start board
+     * @param goal  the packed goal board
+     * @return the solution, or an empty {@code Optional} if the heuristic shows that the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, long goal) {
+        return solve(start, GoalPattern.exact(codec, goal));
+    }
+
+    /**
+     * Finds an optimal solution to the nearest board accepted by a goal.
+     *
+     * @param start the packed start board
+     * @param goal  the goal
+     * @return the solution, or an empty {@code Optional} if the heuristic shows that the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, GoalPattern goal) {
+        this.goal = goal;
+        expandedNodes = 0;
+        if (table != null) {
+            table.prepare(goal);
+        }
+        int bound = estimate(start);
+        while (bound < Heuristic.UNREACHABLE) {
+            Logger.debug("IDA* iteration with bound {}", bound);
+            //A node at the bound may still be expanded; its children are then cut off by their estimate.
+            path = new long[bound + 2];
+            successors = new long[bound + 1][codec.squares()];
+            path[0] = start;
+            int result = search(0, bound);
+            if (result == FOUND) {
+                return Optional.of(new Solution(Arrays.copyOf(path, solutionDepth + 1)));
+            }
+            bound = result;
+        }
+        return Optional.empty();
+    }
+
+    //Returns FOUND, or the smallest estimate that exceeded the bound below this node.
+    private int search(int depth, int bound) {
+        long state = path[depth];
+        int estimate = depth + estimate(state);
+        if (estimate > bound) {
+            return estimate;
+        }
+        if (goal.matches(state)) {
+            solutionDepth = depth;
+            return FOUND;
+        }
+        expandedNodes++;
+        int min = Heuristic.UNREACHABLE;
+        long[] next = successors[depth];
+        int count = codec.successors(state, next);
+        for (int i = 0; i < count; i++) {
+            if (depth > 0 && next[i] == path[depth - 1]) {
+                if (table != null) {
+                    min = Math.min(min, depth + 1 + estimate(next[i]));
+                }
+                continue;
+            }
+            path[depth + 1] = next[i];
+            int result = search(depth + 1, bound);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            min = Math.min(min, result);
+        }
+        if (table != null) {
+            table.store(state, bound - depth, min - depth);
+        }
+        return min;
+    }
+
+    private int estimate(long state) {
+        int estimate = heuristic.estimate(state);
+        return table == null ? estimate : Math.max(estimate, table.probe(state));
+    }
+
+    /**
+     * Returns the number of boards expanded by the last call to {@link #solve(long, GoalPattern)}.
+     *
+     * @return the number of expanded boards
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+}
@@ -2,6 +2,7 @@ package solver;
 
 import puzzle.solver.BreadthFirstSearch;
 import puzzle.Move;
+import puzzle.PackedBoard;
 import puzzle.Position;
 import puzzle.PuzzleState;
 
@@ -13,5 +14,9 @@ public class Main {
     public static void main(String[] args) {
         var bfs = new BreadthFirstSearch<Move>();  // Use Move instead of Direction
         bfs.solveAndPrintSolution(new PuzzleState());
+
+        PackedBoard codec = new PackedBoard(2, 3);
+        var solutions = OptimalSolutions.of(codec, codec.pack(new PuzzleState()), codec.parse("BB./RRK"));
+        System.out.println("Number of optimal solutions: " + solutions.count());
     }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package solver;
+
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Counts and enumerates all shortest solutions from a start board to a goal board.
+ * <p>
+ * A breadth-first search from the start labels every board with its distance and with the number of shortest
+ * paths reaching it, which is the sum of the counts of its neighbours one layer closer to the start. Both are
+ * stored in arrays indexed by {@link StateIndexer} rank, so counting takes time proportional to the number of
+ * boards searched, however many solutions there are. The solutions themselves are produced lazily by
+ * {@link #iterator()}, which walks back from the goal through the labelled layers.
+ * <p>
+ * Distances are stored in one byte per board, so the goal may be at most {@value #MAX_DISTANCE} moves away.
+ * The number of solutions grows exponentially with the distance; counts that do not fit in a {@code long} are
+ * kept at {@link Long#MAX_VALUE}, see {@link #isCountExact()}.
+ */
+public class OptimalSolutions implements Iterable<Solution> {
+
+    private static final int UNSEEN = 0xFF;
+
+    /**
+     * The largest distance from the start to the goal that can be searched.
+     */
+    public static final int MAX_DISTANCE = UNSEEN - 1;
+
+    private final PackedBoard codec;
+    private final StateIndexer indexer;
+    private final long start;
+    private final long goal;
+    private final byte[] distances;
+    private final long[] counts;
+    private final int length;
+
+    private OptimalSolutions(PackedBoard codec, long start, long goal) {
+        this.codec = codec;
+        this.indexer = StateIndexer.forBoard(codec, start);
+        if (indexer.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many boards: " + indexer.size());
+        }
+        if (!indexer.contains(goal)) {
+            throw new IllegalArgumentException("The goal " + codec.format(goal) + " has other pieces than the start "
+                    + codec.format(start));
+        }
+        this.start = start;
+        this.goal = goal;
+        this.distances = new byte[(int) indexer.size()];
+        this.counts = new long[(int) indexer.size()];
+        this.length = search();
+    }
+
+    /**
+     * Finds the number of shortest solutions from a start board to a goal board.
+     *
+     * @param codec the codec of the boards
+     * @param start the packed start board
+     * @param goal  the packed goal board, with the same pieces as the start board
+     * @return the shortest solutions
+     * @throws IllegalArgumentException if the boards have different pieces, there are too many boards to hold in
+     *                                  memory, or the search reaches boards more than {@value #MAX_DISTANCE} moves away
+     */
+    public static OptimalSolutions of(PackedBoard codec, long start, long goal) {
+        return new OptimalSolutions(codec, start, goal);
+    }
+
+    //Breadth-first search from the start that stops after the layer of the goal; returns the distance of the goal.
+    private int search() {
+        Arrays.fill(distances, (byte) UNSEEN);
+        int goalIndex = index(goal);
+        distances[index(start)] = 0;
+        counts[index(start)] = 1;
+        long[] frontier = {start};
+        long[] successors = new long[codec.squares()];
+        for (int distance = 0; frontier.length > 0; distance++) {
+            //The goal's count is complete once the layer before it has been expanded.
+            if (distances[goalIndex] != (byte) UNSEEN) {
+                return distances[goalIndex] & 0xFF;
+            }
+            List<Long> next = new ArrayList<>();
+            for (long state : frontier) {
+                long count = counts[index(state)];
+                int n = codec.successors(state, successors);
+                for (int i = 0; i < n; i++) {
+                    int index = index(successors[i]);
+                    if (distances[index] == (byte) UNSEEN) {
+                        if (distance == MAX_DISTANCE) {
+                            throw new IllegalArgumentException(
+                                    "Boards farther than " + MAX_DISTANCE + " moves from the start");
+                        }
+                        distances[index] = (byte) (distance + 1);
+                        next.add(successors[i]);
+                    }
+                    if (distances[index] == (byte) (distance + 1)) {
+                        //Both counts are non-negative, so a negative sum means that it overflowed.
+                        long sum = counts[index] + count;
+                        counts[index] = sum < 0 ? Long.MAX_VALUE : sum;
+                    }
+                }
+            }
+            frontier = next.stream().mapToLong(Long::longValue).toArray();
+        }
+        return -1;
+    }
+
+    private int index(long state) {
+        return (int) indexer.rank(state);
+    }
+
+    /**
+     * Returns the length of the shortest solutions.
+     *
+     * @return the number of moves, or -1 if the goal cannot be reached
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of distinct shortest solutions.
+     *
+     * @return the number of solutions, or 0 if the goal cannot be reached; {@link Long#MAX_VALUE} if there are at
+     * least that many
+     */
+    public long count() {
+        return length < 0 ? 0 : counts[index(goal)];
+    }
+
+    /**
+     * Checks if {@link #count()} is the exact number of solutions.
+     *
+     * @return {@code true} if the count is exact; {@code false} if it reached {@link Long#MAX_VALUE}, so that
+     * there may be more solutions
+     */
+    public boolean isCountExact() {
+        return count() < Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns an iterator over all shortest solutions. Solutions are found one at a time as the iterator
+     * advances, so only one path is held in memory.
+     *
+     * @return an iterator over the solutions
+     */
+    @Override
+    public Iterator<Solution> iterator() {
+        return new SolutionIterator();
+    }
+
+    //Depth-first walk back from the goal: a predecessor on a shortest path is a neighbour one layer closer to the start.
+    private final class SolutionIterator implements Iterator<Solution> {
+
+        private final long[] path = new long[Math.max(length, 0) + 1];
+        private final Deque<long[]> choices = new ArrayDeque<>(); //Unvisited predecessors per level
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Solution next;
+
+        private SolutionIterator() {
+            if (length >= 0) {
+                path[length] = goal;
+                push(goal, length);
+                next = advance();
+            }
+        }
+
+        private void push(long state, int distance) {
+            long[] successors = new long[codec.squares()];
+            int n = distance == 0 ? 0 : codec.successors(state, successors);
+            long[] predecessors = new long[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if ((distances[index(successors[i])] & 0xFF) == distance - 1) {
+                    predecessors[count++] = successors[i];
+                }
+            }
+            choices.push(Arrays.copyOf(predecessors, count));
+            positions.push(0);
+        }
+
+        private Solution advance() {
+            while (!choices.isEmpty()) {
+                int distance = length - choices.size() + 1; //Distance of the board whose predecessors are on top
+                if (distance == 0) {
+                    choices.pop();
+                    positions.pop();
+                    return new Solution(path);
+                }
+                long[] predecessors = choices.peek();
+                int position = positions.pop();
+                if (position == predecessors.length) {
+                    choices.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                path[distance - 1] = predecessors[position];
+                push(predecessors[position], distance - 1);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Solution next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Solution result = next;
+            next = advance();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package solver;
+
+import org.tinylog.Logger;
+import puzzle.GoalPattern;
+import puzzle.PackedBoard;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves the puzzle with IDA* on all cores of a {@link ForkJoinPool}.
+ * <p>
+ * Each iteration splits the search tree into a task per node of the first plies; below the split depth, a task
+ * searches its subtree depth-first like {@link IdaStarSolver}. Idle threads steal unstarted subtrees from busy
+ * ones, so the work is balanced however uneven the subtrees are. As soon as a thread finds a solution, every
+ * other task notices and returns; the solution is optimal because the previous bound was searched completely.
+ * Memory use stays that of IDA*: one path per running task.
+ * <p>
+ * The goal may be a {@link GoalPattern}, with the same requirements as in {@link IdaStarSolver}.
+ * A {@link TranspositionTable} may be shared by all tasks, with the same effect and the same restriction to one
+ * goal as in {@link IdaStarSolver}. Entries are only stored for subtrees that were searched completely.
+ */
+public class ParallelIdaStarSolver {
+
+    private static final int FOUND = -1;
+    private static final int CANCELLED = -2;
+    private static final int DEFAULT_SPLIT_DEPTH = 6;
+
+    private final PackedBoard codec;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final LongAdder expandedNodes = new LongAdder();
+
+    //The state of one iteration, shared by its tasks.
+    private static final class Iteration {
+        private final GoalPattern goal;
+        private final int bound;
+        private final CancellationToken token;
+        private final AtomicReference<Solution> solution = new AtomicReference<>();
+
+        private Iteration(GoalPattern goal, int bound, CancellationToken token) {
+            this.goal = goal;
+            this.bound = bound;
+            this.token = token;
+        }
+
+        private boolean isStopped() {
+            return solution.get() != null || token.isCancelled();
+        }
+    }
+
+    /**
+     * Constructs a {@code ParallelIdaStarSolver} running on the common pool.
+     *
+     * @param codec     the codec of the boards
+     * @param heuristic the heuristic used to prune the search
+     * @param table     the transposition table shared by all tasks, or {@code null} to search without one
+     */
+    public ParallelIdaStarSolver(PackedBoard codec, Heuristic heuristic, TranspositionTable table) {
+        this(codec, heuristic, table, ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Constructs a {@code ParallelIdaStarSolver} running on the specified pool.
+     *
+     * @param codec      the codec of the boards
+     * @param heuristic  the heuristic used to prune the search
+     * @param table      the transposition table shared by all tasks, or {@code null} to search without one
+     * @param pool       the pool running the tasks
+     * @param splitDepth the number of plies whose nodes become separate tasks
+     */
+    public ParallelIdaStarSolver(PackedBoard codec, Heuristic heuristic, TranspositionTable table,
+                                 ForkJoinPool pool, int splitDepth) {
+        this.codec = codec;
+        this.heuristic = heuristic;
+        this.table = table;
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Finds an optimal solution.
+     *
+     * @param start the packed start board
+     * @param goal  the packed goal board
+     * @return the solution, or an empty {@code Optional} if the heuristic shows that the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, long goal) {
+        return solve(start, goal, new CancellationToken());
+    }
+
+    /**
+     * Finds an optimal solution to the nearest board accepted by a goal.
+     *
+     * @param start the packed start board
+     * @param goal  the goal
+     * @return the solution, or an empty {@code Optional} if the heuristic shows that the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, GoalPattern goal) {
+        return solve(start, goal, new CancellationToken());
+    }
+
+    /**
+     * Finds an optimal solution unless the search is cancelled first.
+     *
+     * @param start the packed start board
+     * @param goal  the packed goal board
+     * @param token the token that cancels the search
+     * @return the solution, or an empty {@code Optional} if the search was cancelled or the heuristic shows that
+     * the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, long goal, CancellationToken token) {
+        return solve(start, GoalPattern.exact(codec, goal), token);
+    }
+
+    /**
+     * Finds an optimal solution to the nearest board accepted by a goal, unless the search is cancelled first.
+     *
+     * @param start the packed start board
+     * @param goal  the goal
+     * @param token the token that cancels the search
+     * @return the solution, or an empty {@code Optional} if the search was cancelled or the heuristic shows that
+     * the goal cannot be reached
+     */
+    public Optional<Solution> solve(long start, GoalPattern goal, CancellationToken token) {
+        expandedNodes.reset();
+        if (table != null) {
+            table.prepare(goal);
+        }
+        int bound = estimate(start);
+        while (bound < Heuristic.UNREACHABLE && !token.isCancelled()) {
+            Logger.debug("Parallel IDA* iteration with bound {}", bound);
+            Iteration iteration = new Iteration(goal, bound, token);
+            int result = pool.invoke(new SubtreeTask(iteration, new long[]{start}));
+            if (iteration.solution.get() != null) {
+                return Optional.of(iteration.solution.get());
+            }
+            if (result == CANCELLED) {
+                break;
+            }
+            bound = result;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the number of boards expanded by the last call to {@code solve}.
+     *
+     * @return the number of expanded boards
+     */
+    public long getExpandedNodes() {
+        return expandedNodes.sum();
+    }
+
+    //Searches below the last board of a path; returns FOUND, CANCELLED, or the smallest estimate over the bound.
+    private final class SubtreeTask extends RecursiveTask<Integer> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Iteration iteration; //Tasks are never serialized
+        private final long[] prefix;
+
+        private SubtreeTask(Iteration iteration, long[] prefix) {
+            this.iteration = iteration;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected Integer compute() {
+            int depth = prefix.length - 1;
+            if (depth >= splitDepth) {
+                long[] path = Arrays.copyOf(prefix, iteration.bound + 2);
+                long[][] successors = new long[iteration.bound + 1][codec.squares()];
+                return search(iteration, path, successors, depth);
+            }
+            if (iteration.isStopped()) {
+                return CANCELLED;
+            }
+            long state = prefix[depth];
+            int estimate = depth + estimate(state);
+            if (estimate > iteration.bound) {
+                return estimate;
+            }
+            if (iteration.goal.matches(state)) {
+                iteration.solution.compareAndSet(null, new Solution(prefix));
+                return FOUND;
+            }
+            expandedNodes.increment();
+            int min = Heuristic.UNREACHABLE;
+            long[] next = new long[codec.squares()];
+            int count = codec.successors(state, next);
+            List<SubtreeTask> children = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (depth > 0 && next[i] == prefix[depth - 1]) {
+                    if (table != null) {
+                        min = Math.min(min, depth + 1 + estimate(next[i]));
+                    }
+                    continue;
+                }
+                long[] path = Arrays.copyOf(prefix, depth + 2);
+                path[depth + 1] = next[i];
+                children.add(new SubtreeTask(iteration, path));
+            }
+            invokeAll(children);
+            boolean cancelled = false;
+            for (SubtreeTask child : children) {
+                int result = child.join();
+                if (result == FOUND) {
+                    return FOUND;
+                }
+                if (result == CANCELLED) {
+                    cancelled = true;
+                } else {
+                    min = Math.min(min, result);
+                }
+            }
+            return cancelled ? CANCELLED : store(state, iteration.bound, depth, min);
+        }
+    }
+
+    private int search(Iteration iteration, long[] path, long[][] successors, int depth) {
+        if (iteration.isStopped()) {
+            return CANCELLED;
+        }
+        long state = path[depth];
+        int estimate = depth + estimate(state);
+        if (estimate > iteration.bound) {
+            return estimate;
+        }
+        if (iteration.goal.matches(state)) {
+            iteration.solution.compareAndSet(null, new Solution(Arrays.copyOf(path, depth + 1)));
+            return FOUND;
+        }
+        expandedNodes.increment();
+        int min = Heuristic.UNREACHABLE;
+        long[] next = successors[depth];
+        int count = codec.successors(state, next);
+        for (int i = 0; i < count; i++) {
+            if (depth > 0 && next[i] == path[depth - 1]) {
+                if (table != null) {
+                    min = Math.min(min, depth + 1 + estimate(next[i]));
+                }
+                continue;
+            }
+            path[depth + 1] = next[i];
+            int result = search(iteration, path, successors, depth + 1);
+            if (result == FOUND || result == CANCELLED) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return store(state, iteration.bound, depth, min);
+    }
+
+    //Remembers the improved lower bound of a completely searched board, as IdaStarSolver does.
+    private int store(long state, int bound, int depth, int min) {
+        if (table != null) {
+            table.store(state, bound - depth, min - depth);
+        }
+        return min;
+    }
+
+    private int estimate(long state) {
+        int estimate = heuristic.estimate(state);
+        return table == null ? estimate : Math.max(estimate, table.probe(state));
+    }
+}
@@ -0,0 +1,228 @@
+package solver;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A heuristic that looks up exact distances in an abstraction of the puzzle.
+ * <p>
+ * The abstraction keeps some piece types and replaces all others with anonymous blockers. A blocker may move to
+ * the empty square like any piece type, so every real move is also a move of the abstraction and abstract
+ * distances never exceed real ones. For example, abstracting the bishops tracks only the king and the rooks.
+ * Abstracting more piece types gives a smaller database and a weaker estimate; several databases can be
+ * combined with {@link Heuristic#max(Heuristic...)}.
+ * <p>
+ * The database holds one byte per abstract board. It is computed with a parallel breadth-first search backwards
+ * from the abstract goal, saved as a compressed file and, when opened from a file, loaded on first use.
+ */
+public class PatternDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x50474442; // "PGDB"
+    private static final int VERSION = 1;
+    private static final int UNKNOWN = 0xFF;
+    private static final int ANY_PIECE = 1 << PackedBoard.KING | 1 << PackedBoard.BISHOP | 1 << PackedBoard.ROOK;
+
+    private final PackedBoard codec;
+    private final int abstractedTypes;
+    private final int blocker; //The code used for all abstracted pieces
+    private final long abstractGoal;
+    private final StateIndexer indexer;
+    private final Path file;
+    private volatile byte[] table;
+
+    private PatternDatabase(PackedBoard codec, int abstractedTypes, long goal, Path file) {
+        if ((abstractedTypes & ~ANY_PIECE) != 0) {
+            throw new IllegalArgumentException("Only pieces can be abstracted");
+        }
+        this.codec = codec;
+        this.abstractedTypes = abstractedTypes;
+        this.blocker = abstractedTypes == 0 ? PackedBoard.EMPTY : Integer.numberOfTrailingZeros(abstractedTypes);
+        this.abstractGoal = abstractState(goal);
+        this.indexer = StateIndexer.forBoard(codec, abstractGoal);
+        if (indexer.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Abstraction is too large: " + indexer.size() + " boards");
+        }
+        this.file = file;
+    }
+
+    /**
+     * Builds a pattern database in memory.
+     *
+     * @param codec           the codec of the boards
+     * @param goal            the packed goal board
+     * @param abstractedTypes a bit set of the piece codes to replace with blockers, for example {@code 1 << BISHOP}
+     * @return the pattern database
+     */
+    public static PatternDatabase build(PackedBoard codec, long goal, int abstractedTypes) {
+        PatternDatabase database = new PatternDatabase(codec, abstractedTypes, goal, null);
+        database.table = database.compute();
+        return database;
+    }
+
+    /**
+     * Opens a pattern database saved with {@link #save(Path)}.
+     * Only the header is read here; the table is loaded the first time an estimate is needed.
+     *
+     * @param file the file of the database
+     * @return the pattern database
+     * @throws IOException if the file cannot be read or is not a pattern database
+     */
+    public static PatternDatabase open(Path file) throws IOException {
+        try (DataInputStream in = openData(file)) {
+            return new PatternDatabase(new PackedBoard(in.readInt(), in.readInt()), in.readInt(), in.readLong(), file);
+        }
+    }
+
+    private static DataInputStream openData(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            in.close();
+            throw new IOException("Not a pattern database: " + file);
+        }
+        return in;
+    }
+
+    /**
+     * Saves the database as a compressed file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(codec.rows());
+            out.writeInt(codec.cols());
+            out.writeInt(abstractedTypes);
+            out.writeLong(abstractGoal);
+            out.write(table());
+        }
+    }
+
+    private byte[] table() {
+        byte[] result = table;
+        if (result == null) {
+            synchronized (this) {
+                result = table;
+                if (result == null) {
+                    table = result = load();
+                }
+            }
+        }
+        return result;
+    }
+
+    private byte[] load() {
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = openData(file)) {
+            in.skipNBytes(4 * 3 + 8);
+            byte[] result = new byte[(int) indexer.size()];
+            in.readFully(result);
+            Logger.info("Loaded pattern database {} in {} ms", file, System.currentTimeMillis() - start);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load pattern database " + file, e);
+        }
+    }
+
+    //Retrograde breadth-first search: each layer scans all abstract boards in parallel and labels the
+    //unlabelled neighbours of the boards in the layer. Moves can be undone, so neighbours are predecessors.
+    private byte[] compute() {
+        long start = System.currentTimeMillis();
+        byte[] result = new byte[(int) indexer.size()];
+        Arrays.fill(result, (byte) UNKNOWN);
+        result[(int) indexer.rank(abstractGoal)] = 0;
+        AtomicBoolean changed = new AtomicBoolean(true);
+        int distance = 0;
+        for (; changed.get() && distance < UNKNOWN - 1; distance++) {
+            changed.set(false);
+            int current = distance;
+            LongStream.range(0, result.length).parallel().forEach(rank -> {
+                if ((result[(int) rank] & 0xFF) != current) {
+                    return;
+                }
+                long[] successors = new long[codec.squares()];
+                int count = abstractSuccessors(indexer.unrank(rank), successors);
+                for (int i = 0; i < count; i++) {
+                    int index = (int) indexer.rank(successors[i]);
+                    if ((result[index] & 0xFF) == UNKNOWN) {
+                        result[index] = (byte) (current + 1);
+                        changed.set(true);
+                    }
+                }
+            });
+        }
+        Logger.info("Built pattern database of {} boards, max distance {}, in {} ms",
+                result.length, distance - 1, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private int abstractSuccessors(long state, long[] successors) {
+        int empty = codec.emptySquare(state);
+        int count = 0;
+        for (int from = 0; from < codec.squares(); from++) {
+            int code = PackedBoard.codeAt(state, from);
+            if (code == PackedBoard.EMPTY) {
+                continue;
+            }
+            int types = code == blocker ? ANY_PIECE : 1 << code;
+            if (codec.canMove(types, state, from, empty)) {
+                successors[count++] = PackedBoard.move(state, from, empty);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Maps a board to the abstraction by replacing the abstracted pieces with blockers.
+     *
+     * @param state the packed board
+     * @return the packed abstract board
+     */
+    public long abstractState(long state) {
+        long result = state;
+        for (int square = 0; square < codec.squares(); square++) {
+            if ((abstractedTypes & (1 << PackedBoard.codeAt(state, square))) != 0) {
+                result = result & ~(3L << (2 * square)) | (long) blocker << (2 * square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of abstract boards in the database.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return indexer.size();
+    }
+
+    /**
+     * Returns the distance of the abstraction of a board to the abstract goal.
+     *
+     * @param state the packed board
+     * @return a lower bound on the number of moves to the goal, or {@link #UNREACHABLE}
+     */
+    @Override
+    public int estimate(long state) {
+        int distance = table()[(int) indexer.rank(abstractState(state))] & 0xFF;
+        return distance == UNKNOWN ? UNREACHABLE : distance;
+    }
+}
@@ -0,0 +1,26 @@
+package solver;
+
+import java.util.Optional;
+
+/**
+ * Receives progress reports from a running search. Reports are made on the thread running the search,
+ * so implementations should return quickly.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * A listener that ignores all reports.
+     */
+    ProgressListener NONE = (depth, nodes, best) -> {
+    };
+
+    /**
+     * Called periodically and whenever a better solution is found.
+     *
+     * @param depth the depth of the search, in moves from the start
+     * @param nodes the number of boards expanded so far
+     * @param best  the best solution found so far, if any
+     */
+    void onProgress(int depth, long nodes, Optional<Solution> best);
+}
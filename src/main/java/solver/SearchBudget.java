@@ -0,0 +1,61 @@
+package solver;
+
+import java.time.Duration;
+
+/**
+ * Limits the wall-clock time and the memory a search may use.
+ * <p>
+ * The memory limit is converted to a maximum number of stored boards using a conservative estimate of
+ * {@value #BYTES_PER_NODE} bytes per board, so it bounds the memory of the search itself and not of the whole JVM.
+ */
+public class SearchBudget {
+
+    /**
+     * The estimated memory used by one stored board.
+     */
+    public static final int BYTES_PER_NODE = 128;
+
+    private final Duration timeLimit;
+    private final long memoryLimit;
+
+    /**
+     * Constructs a {@code SearchBudget} with the specified limits.
+     *
+     * @param timeLimit   the maximum wall-clock time of the search
+     * @param memoryLimit the maximum memory of the search, in bytes
+     */
+    public SearchBudget(Duration timeLimit, long memoryLimit) {
+        if (timeLimit.isNegative() || memoryLimit < BYTES_PER_NODE) {
+            throw new IllegalArgumentException("Budget is too small");
+        }
+        this.timeLimit = timeLimit;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Returns the maximum wall-clock time of the search.
+     *
+     * @return the time limit
+     */
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Returns the maximum memory of the search.
+     *
+     * @return the memory limit in bytes
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Returns the maximum number of boards the search may store.
+     *
+     * @return the node limit
+     */
+    public long getMaxNodes() {
+        return memoryLimit / BYTES_PER_NODE;
+    }
+}
@@ -0,0 +1,106 @@
+package solver;
+
+import java.util.Optional;
+
+/**
+ * The outcome of a search with a budget: the best solution found, whether it is known to be optimal,
+ * and why the search stopped.
+ */
+public class SearchResult {
+
+    /**
+     * The reasons a search can stop.
+     */
+    public enum Status {
+        /**
+         * The search finished; the solution, if any, is optimal.
+         */
+        COMPLETED,
+
+        /**
+         * The time limit was reached.
+         */
+        TIME_LIMIT,
+
+        /**
+         * The memory limit was reached.
+         */
+        MEMORY_LIMIT,
+
+        /**
+         * The search was cancelled.
+         */
+        CANCELLED
+    }
+
+    private final Solution solution;
+    private final boolean optimal;
+    private final Status status;
+    private final long expandedNodes;
+
+    /**
+     * Constructs a {@code SearchResult} with the specified values.
+     *
+     * @param solution      the best solution found, or {@code null} if none was found
+     * @param optimal       whether the solution is known to be optimal
+     * @param status        why the search stopped
+     * @param expandedNodes the number of boards expanded
+     */
+    public SearchResult(Solution solution, boolean optimal, Status status, long expandedNodes) {
+        this.solution = solution;
+        this.optimal = optimal;
+        this.status = status;
+        this.expandedNodes = expandedNodes;
+    }
+
+    /**
+     * Returns the best solution found.
+     *
+     * @return the solution, or an empty {@code Optional} if none was found
+     */
+    public Optional<Solution> getSolution() {
+        return Optional.ofNullable(solution);
+    }
+
+    /**
+     * Checks if the solution is known to be optimal.
+     *
+     * @return {@code true} if no shorter solution exists; {@code false} if it is unknown
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Returns why the search stopped.
+     *
+     * @return the status of the search
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of boards expanded.
+     *
+     * @return the number of expanded boards
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "length=" + (solution == null ? "none" : solution.length()) +
+                ", optimal=" + optimal +
+                ", status=" + status +
+                ", expandedNodes=" + expandedNodes +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package solver;
+
+import puzzle.Move;
+import puzzle.PackedBoard;
+import puzzle.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents a solution found by a solver as the sequence of packed boards from the start to the goal.
+ */
+public class Solution {
+
+    private final long[] states;
+
+    /**
+     * Constructs a {@code Solution} from a sequence of boards.
+     *
+     * @param states the packed boards, starting with the start board and ending with the goal
+     */
+    public Solution(long[] states) {
+        this.states = states.clone();
+    }
+
+    /**
+     * Returns the number of moves of the solution.
+     *
+     * @return the number of moves
+     */
+    public int length() {
+        return states.length - 1;
+    }
+
+    /**
+     * Returns the boards of the solution.
+     *
+     * @return the packed boards from the start to the goal
+     */
+    public long[] getStates() {
+        return states.clone();
+    }
+
+    /**
+     * Returns the moves of the solution.
+     *
+     * @param codec the codec of the boards
+     * @return the moves that lead from the start to the goal
+     */
+    public List<Move> toMoves(PackedBoard codec) {
+        List<Move> moves = new ArrayList<>(length());
+        for (int i = 1; i < states.length; i++) {
+            //The piece moves from the square that becomes empty to the square that was empty.
+            int from = codec.emptySquare(states[i]);
+            int to = codec.emptySquare(states[i - 1]);
+            moves.add(new Move(new Position(from / codec.cols(), from % codec.cols()),
+                    new Position(to / codec.cols(), to % codec.cols())));
+        }
+        return moves;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the reference object with which to compare
+     * @return {@code true} if this object is the same as the argument; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(states, ((Solution) o).states);
+    }
+
+    /**
+     * Returns a hash code value for the solution.
+     *
+     * @return a hash code value for this solution
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(states);
+    }
+
+    /**
+     * Returns a string representation of the solution.
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "Solution{" +
+                "length=" + length() +
+                ", states=" + Arrays.toString(states) +
+                '}';
+    }
+}
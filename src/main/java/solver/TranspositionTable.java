@@ -0,0 +1,152 @@
+package solver;
+
+import puzzle.GoalPattern;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results that can be shared by threads without locking.
+ * <p>
+ * Each entry is a 64-bit key, for example a packed board, with a value and the search depth that produced it.
+ * Entries are stored as two {@code long}s: the data word, and the key XOR a 64-bit hash of the data word. A reader
+ * only accepts an entry if the key word XOR the hash of the data word gives back its key. Individual words are
+ * read and written atomically, but an entry may be torn by two threads writing at once, pairing the key word of
+ * one write with the data word of another. Such an entry is accepted only if the two keys differ by exactly the
+ * XOR of the hashes of the two data words. The hash mixes every bit of the data into every bit of the result, so
+ * this is about as unlikely as a random 64-bit collision even for keys that differ in a single bit, as
+ * neighbouring boards do; it is not impossible, so a torn entry is detected with high probability, not always.
+ * <p>
+ * Entries live in buckets of two slots. The first slot keeps the entry with the deepest search, since it saved
+ * the most work; the second slot always takes the newest entry that did not win the first. The table never
+ * grows: its size is fixed by a number of megabytes.
+ * <p>
+ * The values stored by the solvers are bounds on the distance to a goal, which are wrong for any other goal.
+ * The table remembers the goal it is filled for, see {@link #prepare(GoalPattern)}, and starts over when a search
+ * for another goal begins. It must therefore not be shared by searches for different goals running at the same
+ * time.
+ */
+public class TranspositionTable {
+
+    /**
+     * The value returned by {@link #probe(long)} when the key is not in the table.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The largest value that can be stored; larger values are stored as this one.
+     */
+    public static final int MAX_VALUE = 0xFFFF;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int BUCKET_BYTES = 4 * Long.BYTES;
+    private static final int MAX_DEPTH = 0xFFFF;
+    private static final long VALID = 1L << 63; //Set in every data word, so that empty slots never match
+
+    private final long[] table; //Per slot: key ^ mix(data), data
+    private final int bucketMask;
+    private GoalPattern goal; //The goal of the stored entries, or null if none has been given
+
+    /**
+     * Constructs a {@code TranspositionTable} using at most the specified amount of memory.
+     *
+     * @param megabytes the size of the table in megabytes
+     * @throws IllegalArgumentException if the size is not positive or exceeds the largest Java array
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0 || (long) megabytes << 20 > (long) Integer.MAX_VALUE * Long.BYTES) {
+            throw new IllegalArgumentException("Unsupported table size: " + megabytes + " MB");
+        }
+        long buckets = Long.highestOneBit(((long) megabytes << 20) / BUCKET_BYTES);
+        this.table = new long[(int) (buckets * 4)];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return the capacity
+     */
+    public long capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Looks up the value stored for a key.
+     *
+     * @param key the key
+     * @return the stored value, or {@link #NOT_FOUND}
+     */
+    public int probe(long key) {
+        int slot = bucket(key);
+        for (int i = 0; i < 2; i++, slot += 2) {
+            long data = (long) LONGS.getOpaque(table, slot + 1);
+            if (((long) LONGS.getOpaque(table, slot) ^ mix(data)) == key && data != 0) {
+                return value(data);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores a value for a key. An older entry for the same key is replaced; otherwise the entry may evict
+     * the entry of another key.
+     *
+     * @param key   the key
+     * @param depth the depth of the search that produced the value; deeper entries are kept longer
+     * @param value the value, between 0 and {@link #MAX_VALUE}
+     */
+    public void store(long key, int depth, int value) {
+        long data = VALID | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << 16 | Math.min(value, MAX_VALUE);
+        int first = bucket(key);
+        long firstData = (long) LONGS.getOpaque(table, first + 1);
+        boolean firstHasKey = ((long) LONGS.getOpaque(table, first) ^ mix(firstData)) == key;
+        //A racing writer may change the slot after these reads; the worst outcome is losing one entry.
+        int slot = firstData == 0 || firstHasKey || depth(data) >= depth(firstData) ? first : first + 2;
+        LONGS.setOpaque(table, slot, key ^ mix(data));
+        LONGS.setOpaque(table, slot + 1, data);
+    }
+
+    /**
+     * Removes all entries. Must not be called while other threads use the table.
+     */
+    public synchronized void clear() {
+        Arrays.fill(table, 0);
+        goal = null;
+    }
+
+    /**
+     * Prepares the table for a search towards a goal, removing all entries if they were stored for another goal.
+     * Must not be called while other threads use the table.
+     *
+     * @param goal the goal of the search
+     */
+    public synchronized void prepare(GoalPattern goal) {
+        if (!goal.equals(this.goal)) {
+            Arrays.fill(table, 0);
+            this.goal = goal;
+        }
+    }
+
+    private int bucket(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return ((int) (hash >>> 32) & bucketMask) * 4;
+    }
+
+    //The finalizer of SplitMix64: each bit of the data flips about half of the bits of the result.
+    private static long mix(long data) {
+        long hash = data;
+        hash = (hash ^ hash >>> 30) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ hash >>> 27) * 0x94D049BB133111EBL;
+        return hash ^ hash >>> 31;
+    }
+
+    private static int value(long data) {
+        return (int) data & 0xFFFF;
+    }
+
+    private static int depth(long data) {
+        return (int) (data >>> 16) & MAX_DEPTH;
+    }
+}
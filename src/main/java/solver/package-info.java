@@ -1,4 +1,4 @@
 /**
- * This package contains a class for solving the chess puzzle.
+ * This package contains classes for solving the chess puzzle.
  */
 package solver;
\ No newline at end of file
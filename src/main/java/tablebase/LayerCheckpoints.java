@@ -0,0 +1,280 @@
+package tablebase;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * The completed layers of a {@link Mod3TablebaseBuilder} search, saved in a directory so that an interrupted
+ * build can resume from the last layer on disk.
+ * <p>
+ * Every layer is written once, to its own file, as soon as it is complete: as a bit set over the indexes, or as
+ * a list of indexes when that is smaller. A complete layer is never modified again, so a background thread writes
+ * it while the next layer is expanded, without copying it. Once the file is flushed to disk, the manifest, which
+ * lists the layer files with their CRC-32 checksums, is replaced with an atomic move; a crash at any point leaves
+ * a consistent manifest behind. Together, the layers hold everything the search knows: the visited boards are
+ * their union, the table entries of layer {@code d} hold {@code d mod 3}, and the last layer is the frontier.
+ */
+final class LayerCheckpoints {
+
+    private static final int MAGIC = 0x5047434B; // "PGCK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 36; // magic, version, rows, cols, goal, size, number of layers
+    private static final int ENTRY_SIZE = 16; // boards, encoding, crc
+    private static final String MANIFEST = "manifest.bin";
+    private static final int BIT_SET = 0;
+    private static final int INDEX_LIST = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final PackedBoard codec;
+    private final long goal;
+    private final long size;
+    private final List<Entry> entries; //Only changed by the writer thread once the search runs
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pending = CompletableFuture.completedFuture(null);
+    private boolean stopped;
+
+    private record Entry(long boards, int encoding, int crc) {
+    }
+
+    private LayerCheckpoints(Path directory, PackedBoard codec, long goal, long size, List<Entry> entries) {
+        this.directory = directory;
+        this.codec = codec;
+        this.goal = goal;
+        this.size = size;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens the checkpoints in a directory, creating it if it does not exist.
+     * A damaged manifest is ignored, so that the search starts over.
+     *
+     * @param directory the directory of the checkpoints
+     * @param codec     the codec of the boards
+     * @param goal      the packed goal board
+     * @param size      the number of indexes
+     * @return the checkpoints
+     * @throws IOException if the directory cannot be created, or holds the checkpoints of another search
+     */
+    static LayerCheckpoints open(Path directory, PackedBoard codec, long goal, long size) throws IOException {
+        Files.createDirectories(directory);
+        List<Entry> entries = new ArrayList<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(manifest)).order(ByteOrder.LITTLE_ENDIAN);
+            if (!isIntact(buffer)) {
+                Logger.warn("Ignoring damaged checkpoint manifest {}", manifest);
+            } else if (buffer.getInt(8) != codec.rows() || buffer.getInt(12) != codec.cols()
+                    || buffer.getLong(16) != goal || buffer.getLong(24) != size) {
+                throw new IOException("Checkpoints of a different search in " + directory);
+            } else {
+                int layers = buffer.getInt(32);
+                for (int i = 0; i < layers; i++) {
+                    int offset = HEADER_SIZE + i * ENTRY_SIZE;
+                    entries.add(new Entry(buffer.getLong(offset), buffer.getInt(offset + 8), buffer.getInt(offset + 12)));
+                }
+            }
+        }
+        return new LayerCheckpoints(directory, codec, goal, size, entries);
+    }
+
+    private static boolean isIntact(ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < HEADER_SIZE + Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || length != HEADER_SIZE + (long) buffer.getInt(32) * ENTRY_SIZE + Integer.BYTES) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - Integer.BYTES);
+        return (int) crc.getValue() == buffer.getInt(length - Integer.BYTES);
+    }
+
+    /**
+     * Reads a saved layer. If the layer file is missing or damaged, it and all later layers are forgotten.
+     *
+     * @param distance the distance of the layer from the goal
+     * @return the layer as a bit set over the indexes, or {@code null} if it is not available
+     */
+    long[] read(int distance) {
+        if (distance >= entries.size()) {
+            return null;
+        }
+        Entry entry = entries.get(distance);
+        long[] layer = new long[(int) ((size + 63) / 64)];
+        Path file = directory.resolve(layerFile(distance));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = (entry.encoding == BIT_SET ? layer.length : entry.boards) * Long.BYTES;
+            if (channel.size() != bytes) {
+                return forget(distance, "it has the wrong size");
+            }
+            ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+            CRC32 crc = new CRC32();
+            long boards = 0;
+            for (long value = 0; value < bytes / Long.BYTES; value++) {
+                if (!data.hasRemaining()) {
+                    fill(channel, data);
+                    crc.update(data.duplicate());
+                }
+                long word = data.getLong();
+                if (entry.encoding == BIT_SET) {
+                    layer[(int) value] = word;
+                    boards += Long.bitCount(word);
+                } else if (word >= 0 && word < size) {
+                    layer[(int) (word >>> 6)] |= 1L << word;
+                    boards++;
+                }
+            }
+            if ((int) crc.getValue() != entry.crc || boards != entry.boards) {
+                return forget(distance, "its checksum does not match");
+            }
+            return layer;
+        } catch (IOException e) {
+            return forget(distance, e.toString());
+        }
+    }
+
+    private long[] forget(int distance, String reason) {
+        Logger.warn("Checkpoint of layer {} cannot be used because {}", distance, reason);
+        entries.subList(distance, entries.size()).clear();
+        return null;
+    }
+
+    /**
+     * Starts writing a complete layer in the background. The layer must not be modified afterwards.
+     * Waits for the previous layer to be written first, so that at most one layer is queued.
+     * If a write fails, the search goes on without further checkpoints.
+     *
+     * @param distance the distance of the layer from the goal; every earlier layer must have been saved
+     * @param layer    the layer as a bit set over the indexes
+     * @param boards   the number of boards in the layer
+     */
+    void save(int distance, long[] layer, long boards) {
+        awaitPending();
+        if (!stopped) {
+            pending = writer.submit(() -> {
+                write(distance, layer, boards);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Waits for the last layer to be written and stops the background thread.
+     */
+    void close() {
+        awaitPending();
+        writer.shutdown();
+    }
+
+    private void awaitPending() {
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } catch (ExecutionException e) {
+            Logger.warn(e.getCause(), "Checkpointing stopped after layer {}", entries.size() - 1);
+            stopped = true;
+        }
+    }
+
+    private void write(int distance, long[] layer, long boards) throws IOException {
+        int encoding = boards < layer.length ? INDEX_LIST : BIT_SET;
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(directory.resolve(layerFile(distance)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int word = 0; word < layer.length; word++) {
+                if (encoding == BIT_SET) {
+                    data.putLong(layer[word]);
+                } else {
+                    for (long bits = layer[word]; bits != 0; bits &= bits - 1) {
+                        data.putLong((long) word << 6 | Long.numberOfTrailingZeros(bits));
+                        if (!data.hasRemaining()) {
+                            flush(channel, data, crc);
+                        }
+                    }
+                }
+                if (!data.hasRemaining()) {
+                    flush(channel, data, crc);
+                }
+            }
+            flush(channel, data, crc);
+            channel.force(false);
+        }
+        entries.subList(distance, entries.size()).clear();
+        entries.add(new Entry(boards, encoding, (int) crc.getValue()));
+        writeManifest();
+    }
+
+    //Reads up to a full buffer, which always ends on a value since the file holds whole longs.
+    private static void fill(FileChannel channel, ByteBuffer data) throws IOException {
+        data.clear();
+        while (data.hasRemaining()) {
+            if (channel.read(data) < 0) {
+                break;
+            }
+        }
+        data.flip();
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer data, CRC32 crc) throws IOException {
+        data.flip();
+        crc.update(data.duplicate());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        data.clear();
+    }
+
+    private void writeManifest() throws IOException {
+        ByteBuffer manifest = ByteBuffer.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE + Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        manifest.putInt(MAGIC).putInt(VERSION)
+                .putInt(codec.rows()).putInt(codec.cols())
+                .putLong(goal).putLong(size)
+                .putInt(entries.size());
+        for (Entry entry : entries) {
+            manifest.putLong(entry.boards).putInt(entry.encoding).putInt(entry.crc);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(manifest.array(), 0, manifest.position());
+        manifest.putInt((int) crc.getValue()).flip();
+
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (manifest.hasRemaining()) {
+                channel.write(manifest);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, directory.resolve(MANIFEST),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String layerFile(int distance) {
+        return String.format("layer-%04d.bin", distance);
+    }
+}
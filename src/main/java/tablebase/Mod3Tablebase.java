@@ -0,0 +1,160 @@
+package tablebase;
+
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped tablebase that stores the distance of every board to the goal modulo 3, in two bits per board.
+ * <p>
+ * Entry {@code rank} of a board with {@link StateIndexer} index {@code rank} is held in bits
+ * {@code 2 * (rank % 4)} and {@code 2 * (rank % 4) + 1} of data byte {@code rank / 4}; the value
+ * {@link #UNREACHABLE} marks boards from which the goal cannot be reached.
+ * <p>
+ * Two bits suffice for perfect play: the neighbours of a board at distance {@code d} are at distance
+ * {@code d - 1}, {@code d} or {@code d + 1}, which are all different modulo 3, so the neighbour with value
+ * {@code (d - 1) mod 3} is always one step closer to the goal. The exact distance is found by following such
+ * moves until the goal is reached. This takes four times less space than a byte per board.
+ */
+public class Mod3Tablebase {
+
+    /**
+     * The value of boards from which the goal cannot be reached.
+     */
+    public static final int UNREACHABLE = 3;
+
+    static final int MAGIC = 0x50475442; // "PGTB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int CHUNK_BITS = 30; //Mapped in 1 GiB chunks, since a buffer is limited to 2 GiB
+
+    private final PackedBoard codec;
+    private final StateIndexer indexer;
+    private final long goal;
+    private final MappedByteBuffer[] chunks;
+
+    private Mod3Tablebase(PackedBoard codec, long goal, MappedByteBuffer[] chunks) {
+        this.codec = codec;
+        this.goal = goal;
+        this.indexer = StateIndexer.forBoard(codec, goal);
+        this.chunks = chunks;
+    }
+
+    /**
+     * Opens a tablebase file written by {@link Mod3TablebaseBuilder}.
+     *
+     * @param file the file of the tablebase
+     * @return the tablebase
+     * @throws IOException if the file cannot be read or is not a tablebase
+     */
+    public static Mod3Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            PackedBoard codec = new PackedBoard(header.getInt(), header.getInt());
+            long goal = header.getLong();
+            long size = header.getLong();
+            long bytes = (size + 3) / 4;
+            if (channel.size() < HEADER_SIZE + bytes) {
+                throw new IOException("Truncated tablebase: " + file);
+            }
+            //The mapping stays valid after the channel is closed.
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset,
+                        Math.min(1L << CHUNK_BITS, bytes - offset));
+            }
+            Mod3Tablebase tablebase = new Mod3Tablebase(codec, goal, chunks);
+            if (tablebase.indexer.size() != size) {
+                throw new IOException("Corrupt tablebase header: " + file);
+            }
+            return tablebase;
+        }
+    }
+
+    /**
+     * Returns the codec of the boards of this tablebase.
+     *
+     * @return the codec
+     */
+    public PackedBoard getCodec() {
+        return codec;
+    }
+
+    /**
+     * Returns the goal of this tablebase.
+     *
+     * @return the packed goal board
+     */
+    public long getGoal() {
+        return goal;
+    }
+
+    private int valueAt(long rank) {
+        long index = rank >>> 2;
+        byte entries = chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & ((1L << CHUNK_BITS) - 1)));
+        return entries >>> (2 * (int) (rank & 3)) & 3;
+    }
+
+    /**
+     * Returns the stored value of a board.
+     *
+     * @param state the packed board
+     * @return the distance of the board to the goal modulo 3, or {@link #UNREACHABLE}
+     */
+    public int distanceMod3(long state) {
+        return valueAt(indexer.rank(state));
+    }
+
+    /**
+     * Returns the board reached by an optimal move.
+     *
+     * @param state the packed board
+     * @return the packed board one step closer to the goal, or -1 if the board is the goal or cannot reach it
+     */
+    public long bestMove(long state) {
+        int value = distanceMod3(state);
+        if (value == UNREACHABLE || state == goal) {
+            return -1;
+        }
+        int closer = (value + 2) % 3;
+        long[] successors = new long[codec.squares()];
+        int n = codec.successors(state, successors);
+        for (int i = 0; i < n; i++) {
+            if (distanceMod3(successors[i]) == closer) {
+                return successors[i];
+            }
+        }
+        throw new IllegalStateException("Corrupt tablebase: no move closer to the goal from " + codec.format(state));
+    }
+
+    /**
+     * Returns the exact distance of a board to the goal, by following optimal moves.
+     *
+     * @param state the packed board
+     * @return the number of moves to the goal, or -1 if the goal cannot be reached
+     */
+    public int distance(long state) {
+        if (distanceMod3(state) == UNREACHABLE) {
+            return -1;
+        }
+        int distance = 0;
+        for (long current = state; current != goal; current = bestMove(current)) {
+            distance++;
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,225 @@
+package tablebase;
+
+import org.tinylog.Logger;
+import puzzle.BatchExpander;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a {@link Mod3Tablebase} file with a parallel breadth-first search from the goal.
+ * <p>
+ * The table itself doubles as the visited set: an entry is unvisited while it holds {@link Mod3Tablebase#UNREACHABLE}.
+ * The current and next layers are kept as bit sets over the indexes, so the search needs about 4 bits per board
+ * in total: 2 for the table and 1 for each layer, and up to 5 while a checkpoint write still holds a layer.
+ * Entries are packed 32 to a {@code long} and updated with compare-and-set, so all cores can expand the same
+ * layer. Each core takes a chunk of the layer at a time and expands its boards 64 at once with a
+ * {@link BatchExpander}.
+ * <p>
+ * A long build can save its layers to a checkpoint directory as it goes, in the background, and resume from them
+ * after a crash; see {@link #build(Path, Path)}.
+ */
+public class Mod3TablebaseBuilder {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int CHUNK_WORDS = 1024; //Layer words expanded by one task, 65536 boards
+
+    private final PackedBoard codec;
+    private final long goal;
+    private final StateIndexer indexer;
+
+    /**
+     * Constructs a {@code Mod3TablebaseBuilder} for the specified goal.
+     *
+     * @param codec the codec of the boards
+     * @param goal  the packed goal board
+     * @throws IllegalArgumentException if there are too many boards to hold the table in memory
+     */
+    public Mod3TablebaseBuilder(PackedBoard codec, long goal) {
+        this.codec = codec;
+        this.goal = goal;
+        this.indexer = StateIndexer.forBoard(codec, goal);
+        if (indexer.size() > 32L * (Integer.MAX_VALUE - 8)) {
+            throw new IllegalArgumentException("Too many boards: " + indexer.size());
+        }
+    }
+
+    /**
+     * Builds the tablebase and writes it to a file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void build(Path file) throws IOException {
+        build(file, null);
+    }
+
+    /**
+     * Builds the tablebase and writes it to a file, saving every completed layer of the search to a directory.
+     * If the directory already holds layers of the same search, for example because an earlier build was
+     * interrupted, the search resumes after the last layer that can be read back intact. The checkpoints are
+     * kept after the build; delete the directory once they are no longer needed.
+     *
+     * @param file        the file to write
+     * @param checkpoints the directory of the checkpoints, or {@code null} to build without them
+     * @throws IOException if the file cannot be written, or the directory holds the checkpoints of another search
+     */
+    public void build(Path file, Path checkpoints) throws IOException {
+        long start = System.currentTimeMillis();
+        long[] table = new long[(int) ((indexer.size() + 31) / 32)];
+        Arrays.fill(table, -1L); //Every entry UNREACHABLE
+        LayerCheckpoints saved = checkpoints == null ? null
+                : LayerCheckpoints.open(checkpoints, codec, goal, indexer.size());
+        try {
+            long[] current = null;
+            long reached = 0;
+            int distance = -1;
+            if (saved != null) {
+                for (long[] layer = saved.read(0); layer != null; layer = saved.read(distance + 1)) {
+                    distance++;
+                    reached += restore(table, layer, distance % 3);
+                    current = layer;
+                }
+            }
+            if (current == null) {
+                current = new long[(int) ((indexer.size() + 63) / 64)];
+                long goalRank = indexer.rank(goal);
+                set(table, goalRank, 0);
+                current[(int) (goalRank >>> 6)] |= 1L << goalRank;
+                reached = 1;
+                distance = 0;
+                if (saved != null) {
+                    saved.save(distance, current, 1);
+                }
+            } else {
+                Logger.info("Resumed from layer {} with {} boards reached, in {} ms",
+                        distance, reached, System.currentTimeMillis() - start);
+            }
+
+            while (true) {
+                long[] next = new long[current.length];
+                long[] layer = current;
+                int value = (distance + 1) % 3;
+                AtomicLong found = new AtomicLong();
+                IntStream.range(0, (layer.length + CHUNK_WORDS - 1) / CHUNK_WORDS).parallel().forEach(chunk -> {
+                    BatchExpander expander = BatchExpander.create(codec); //Not thread-safe, so one per task
+                    long[] states = new long[64];
+                    long[] successors = new long[codec.squares() * states.length];
+                    long count = 0;
+                    for (int word = chunk * CHUNK_WORDS; word < Math.min(layer.length, (chunk + 1) * CHUNK_WORDS);
+                            word++) {
+                        int n = 0;
+                        for (long bits = layer[word]; bits != 0; bits &= bits - 1) {
+                            states[n++] = indexer.unrank((long) word << 6 | Long.numberOfTrailingZeros(bits));
+                        }
+                        if (n == 0) {
+                            continue;
+                        }
+                        expander.expand(states, n, successors);
+                        for (int i = 0; i < codec.squares() * n; i++) {
+                            if (successors[i] == BatchExpander.NO_MOVE) {
+                                continue;
+                            }
+                            long successor = indexer.rank(successors[i]);
+                            if (claim(table, successor, value)) {
+                                LONGS.getAndBitwiseOr(next, (int) (successor >>> 6), 1L << successor);
+                                count++;
+                            }
+                        }
+                    }
+                    found.addAndGet(count);
+                });
+                if (found.get() == 0) {
+                    break;
+                }
+                reached += found.get();
+                distance++;
+                Logger.debug("Layer {}: {} boards", distance, found.get());
+                current = next;
+                if (saved != null) {
+                    saved.save(distance, current, found.get());
+                }
+            }
+            write(file, table);
+            Logger.info("Built tablebase of {} boards, {} reachable, max distance {}, in {} ms",
+                    indexer.size(), reached, distance, System.currentTimeMillis() - start);
+        } finally {
+            if (saved != null) {
+                saved.close();
+            }
+        }
+    }
+
+    //Sets the entries of a saved layer; a layer word covers two whole table words, so words can be done in parallel.
+    private static long restore(long[] table, long[] layer, int value) {
+        return IntStream.range(0, layer.length).parallel().mapToLong(word -> {
+            for (long bits = layer[word]; bits != 0; bits &= bits - 1) {
+                set(table, (long) word << 6 | Long.numberOfTrailingZeros(bits), value);
+            }
+            return Long.bitCount(layer[word]);
+        }).sum();
+    }
+
+    private static void set(long[] table, long rank, int value) {
+        int shift = (int) (rank & 31) * 2;
+        table[(int) (rank >>> 5)] = table[(int) (rank >>> 5)] & ~(3L << shift) | (long) value << shift;
+    }
+
+    //Sets an unvisited entry; returns false if it was already visited.
+    private static boolean claim(long[] table, long rank, int value) {
+        int index = (int) (rank >>> 5);
+        int shift = (int) (rank & 31) * 2;
+        long word;
+        do {
+            word = (long) LONGS.getVolatile(table, index);
+            if ((word >>> shift & 3) != Mod3Tablebase.UNREACHABLE) {
+                return false;
+            }
+        } while (!LONGS.compareAndSet(table, index, word, word & ~(3L << shift) | (long) value << shift));
+        return true;
+    }
+
+    private void write(Path file, long[] table) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(Mod3Tablebase.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(Mod3Tablebase.MAGIC).putInt(Mod3Tablebase.VERSION)
+                    .putInt(codec.rows()).putInt(codec.cols())
+                    .putLong(goal).putLong(indexer.size())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            //Little-endian longs put entry 4k..4k+3 into byte k, which is what the reader expects.
+            ByteBuffer data = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            long bytes = (indexer.size() + 3) / 4;
+            for (int i = 0; i < table.length; i++) {
+                if (data.remaining() < Long.BYTES) {
+                    writeFully(channel, data);
+                }
+                data.putLong(table[i]);
+            }
+            writeFully(channel, data);
+            channel.truncate(Mod3Tablebase.HEADER_SIZE + bytes);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        data.flip();
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        data.clear();
+    }
+}
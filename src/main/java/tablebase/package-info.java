@@ -0,0 +1,5 @@
+/**
+ * This package contains classes for building and reading tablebases, precomputed tables that answer
+ * perfect-play queries for every board of a puzzle.
+ */
+package tablebase;
@@ -0,0 +1,43 @@
+package verifier;
+
+import puzzle.PackedBoard;
+import tablebase.Mod3Tablebase;
+
+/**
+ * Knows the optimal distance of every board to the goal, so that solutions can be checked for optimality.
+ * Implementations must be safe to call from several threads.
+ */
+@FunctionalInterface
+public interface DistanceOracle {
+
+    /**
+     * Returns the optimal distance of a board to the goal.
+     *
+     * @param board the packed board
+     * @return the number of moves, or -1 if the goal cannot be reached
+     */
+    int distance(long board);
+
+    /**
+     * Returns an oracle that reads distances from a tablebase.
+     *
+     * @param tablebase the tablebase of the goal
+     * @return the oracle
+     */
+    static DistanceOracle of(Mod3Tablebase tablebase) {
+        return tablebase::distance;
+    }
+
+    /**
+     * Returns an oracle that computes the distances of all boards with a breadth-first search from the goal.
+     *
+     * @param codec the codec of the boards
+     * @param goal  the packed goal board
+     * @return the oracle
+     * @throws IllegalArgumentException if there are too many boards to hold in memory, or a board is more than
+     *                                  254 moves from the goal
+     */
+    static DistanceOracle exact(PackedBoard codec, long goal) {
+        return new DistanceTable(codec, goal);
+    }
+}
@@ -0,0 +1,64 @@
+package verifier;
+
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+
+import java.util.Arrays;
+
+/**
+ * The distances of all boards to a goal, one byte per board indexed by {@link StateIndexer} rank.
+ * A byte holds distances up to {@value #MAX_DISTANCE}; goals with farther boards are rejected.
+ */
+final class DistanceTable implements DistanceOracle {
+
+    private static final int UNSEEN = 0xFF;
+    static final int MAX_DISTANCE = UNSEEN - 1;
+
+    private final StateIndexer indexer;
+    private final byte[] distances;
+
+    //Throws IllegalArgumentException if there are too many boards, or a board is farther than MAX_DISTANCE.
+    DistanceTable(PackedBoard codec, long goal) {
+        indexer = StateIndexer.forBoard(codec, goal);
+        if (indexer.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many boards: " + indexer.size());
+        }
+        distances = new byte[(int) indexer.size()];
+        Arrays.fill(distances, (byte) UNSEEN);
+        distances[(int) indexer.rank(goal)] = 0;
+        long[] frontier = {goal};
+        long[] successors = new long[codec.squares()];
+        for (int distance = 1; frontier.length > 0 && distance < UNSEEN; distance++) {
+            long[] next = new long[16];
+            int size = 0;
+            for (long state : frontier) {
+                int count = codec.successors(state, successors);
+                for (int i = 0; i < count; i++) {
+                    int index = (int) indexer.rank(successors[i]);
+                    if (distances[index] == (byte) UNSEEN) {
+                        distances[index] = (byte) distance;
+                        if (size == next.length) {
+                            next = Arrays.copyOf(next, size * 2);
+                        }
+                        next[size++] = successors[i];
+                    }
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+        }
+        for (long state : frontier) {
+            int count = codec.successors(state, successors);
+            for (int i = 0; i < count; i++) {
+                if (distances[(int) indexer.rank(successors[i])] == (byte) UNSEEN) {
+                    throw new IllegalArgumentException("Boards farther than " + MAX_DISTANCE + " moves from the goal");
+                }
+            }
+        }
+    }
+
+    @Override
+    public int distance(long board) {
+        int distance = distances[(int) indexer.rank(board)] & 0xFF;
+        return distance == UNSEEN ? -1 : distance;
+    }
+}
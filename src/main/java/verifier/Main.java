@@ -0,0 +1,40 @@
+package verifier;
+
+import puzzle.PackedBoard;
+import tablebase.Mod3Tablebase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Checks a file of solutions and prints the counts of each outcome.
+ * <p>
+ * Usage: {@code <file> [goal] [tablebase]}, for example {@code solutions.txt BB./RRK}. The goal is written as
+ * described in {@link PackedBoard} and defaults to that of the standard puzzle. Optimal distances are read from
+ * the tablebase file if one is given, whose goal is then used; otherwise they are computed before checking.
+ */
+public class Main {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: <file> [goal] [tablebase]");
+            System.exit(1);
+        }
+        SolutionVerifier verifier;
+        if (args.length >= 3) {
+            Mod3Tablebase tablebase = Mod3Tablebase.open(Path.of(args[2]));
+            verifier = new SolutionVerifier(tablebase.getCodec(), tablebase.getGoal(), DistanceOracle.of(tablebase));
+        } else {
+            String text = args.length == 2 ? args[1] : "BB./RRK";
+            PackedBoard codec = PackedBoard.forText(text);
+            long goal = codec.parse(text);
+            verifier = new SolutionVerifier(codec, goal, DistanceOracle.exact(codec, goal));
+        }
+
+        VerificationReport report = verifier.verify(Path.of(args[0]));
+        System.out.println(report);
+        for (String failure : report.getFailures()) {
+            System.out.println("  " + failure);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package verifier;
+
+import org.tinylog.Logger;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Checks files of solutions in parallel.
+ * <p>
+ * Every line of a file holds a start board written as described in {@link PackedBoard}, followed by moves of the
+ * form {@code <from>-<to>}, where the numbers are square indexes {@code row * cols + col}, for example
+ * {@code "KBB/RR. 1-5 0-1 3-0"}. Each sequence is replayed on the packed board with
+ * {@link PackedBoard#isLegalMove(long, int, int)}, which follows the rules of the puzzle, and must end at the goal.
+ * Solutions that do are compared with the optimal distance of their start board given by a {@link DistanceOracle}.
+ * <p>
+ * The file is split into chunks at line boundaries, and each chunk is memory-mapped and checked by its own task.
+ * Lines are parsed directly from the mapped bytes, so no strings or move objects are created except to describe
+ * failures.
+ */
+public class SolutionVerifier {
+
+    private static final int CHUNK_SIZE = 1 << 23;
+    private static final int MAX_FAILURES = 100;
+
+    private static final int OPTIMAL = 0;
+    private static final int SUBOPTIMAL = 1;
+    private static final int UNSOLVED = 2;
+    private static final int ILLEGAL = 3;
+    private static final int MALFORMED = 4;
+
+    private final PackedBoard codec;
+    private final long goal;
+    private final DistanceOracle oracle;
+
+    //The results of one chunk; failures hold the line numbers within the chunk.
+    private static final class Tally {
+        private final long[] counts = new long[5];
+        private long excessMoves;
+        private long lines;
+        private final List<Long> failureLines = new ArrayList<>();
+        private final List<String> failureReasons = new ArrayList<>();
+
+        private int fail(int status, String reason) {
+            if (failureLines.size() < MAX_FAILURES) {
+                failureLines.add(lines);
+                failureReasons.add(reason);
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Constructs a {@code SolutionVerifier} for the specified goal.
+     *
+     * @param codec  the codec of the boards
+     * @param goal   the packed goal board
+     * @param oracle the oracle giving the optimal distances to the goal
+     */
+    public SolutionVerifier(PackedBoard codec, long goal, DistanceOracle oracle) {
+        this.codec = codec;
+        this.goal = goal;
+        this.oracle = oracle;
+    }
+
+    /**
+     * Checks every line of a file.
+     *
+     * @param file the file of solutions
+     * @return the counts of optimal, suboptimal and invalid solutions
+     * @throws IOException if the file cannot be read
+     */
+    public VerificationReport verify(Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<Tally> tallies;
+            try {
+                tallies = IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> verifyChunk(channel, bounds[i], bounds[i + 1]))
+                        .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            long[] counts = new long[5];
+            long excessMoves = 0;
+            long firstLine = 1;
+            List<String> failures = new ArrayList<>();
+            for (Tally tally : tallies) {
+                for (int status = 0; status < counts.length; status++) {
+                    counts[status] += tally.counts[status];
+                }
+                excessMoves += tally.excessMoves;
+                for (int i = 0; i < tally.failureLines.size() && failures.size() < MAX_FAILURES; i++) {
+                    failures.add("line " + (firstLine + tally.failureLines.get(i)) + ": " + tally.failureReasons.get(i));
+                }
+                firstLine += tally.lines;
+            }
+            VerificationReport report = new VerificationReport(counts[OPTIMAL], counts[SUBOPTIMAL], counts[UNSOLVED],
+                    counts[ILLEGAL], counts[MALFORMED], excessMoves, failures);
+            Logger.info("Verified {} lines in {} chunks in {} ms", report.getTotal(), tallies.size(),
+                    System.currentTimeMillis() - start);
+            return report;
+        }
+    }
+
+    //Chunk boundaries of about CHUNK_SIZE bytes, each just after a line break.
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            long lineBreak = -1;
+            for (long offset = position; lineBreak < 0 && offset < size; offset += probe.capacity()) {
+                probe.clear();
+                int read = channel.read(probe, offset);
+                for (int i = 0; i < read && lineBreak < 0; i++) {
+                    if (probe.get(i) == '\n') {
+                        lineBreak = offset + i;
+                    }
+                }
+            }
+            if (lineBreak < 0 || lineBreak + 1 == size) {
+                break;
+            }
+            bounds.add(lineBreak + 1);
+            position = lineBreak + 1 + CHUNK_SIZE;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private Tally verifyChunk(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Tally tally = new Tally();
+        int limit = buffer.limit();
+        for (int position = 0; position < limit; ) {
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > position) {
+                tally.counts[verifyLine(buffer, position, lineEnd, tally)]++;
+            }
+            tally.lines++;
+            position = end + 1;
+        }
+        return tally;
+    }
+
+    private int verifyLine(ByteBuffer buffer, int position, int end, Tally tally) {
+        long board = 0;
+        int square = 0;
+        int empty = -1;
+        for (; position < end && buffer.get(position) != ' '; position++) {
+            byte c = buffer.get(position);
+            if (c == '/') {
+                continue;
+            }
+            int code = code(c);
+            if (code < 0 || square == codec.squares() || code == PackedBoard.EMPTY && empty >= 0) {
+                return tally.fail(MALFORMED, "invalid board");
+            }
+            empty = code == PackedBoard.EMPTY ? square : empty;
+            board |= (long) code << (2 * square++);
+        }
+        if (square != codec.squares() || empty < 0) {
+            return tally.fail(MALFORMED, "invalid board");
+        }
+        long start = board;
+        int moves = 0;
+        while (position < end) {
+            if (buffer.get(position) == ' ') {
+                position++;
+                continue;
+            }
+            int from = 0;
+            int to = 0;
+            int digits = 0;
+            for (; position < end && Character.isDigit(buffer.get(position)); position++, digits++) {
+                from = 10 * from + buffer.get(position) - '0';
+            }
+            if (digits == 0 || digits > 2 || position == end || buffer.get(position++) != '-') {
+                return tally.fail(MALFORMED, "invalid move " + (moves + 1));
+            }
+            for (digits = 0; position < end && Character.isDigit(buffer.get(position)); position++, digits++) {
+                to = 10 * to + buffer.get(position) - '0';
+            }
+            if (digits == 0 || digits > 2 || from >= codec.squares() || to >= codec.squares()) {
+                return tally.fail(MALFORMED, "invalid move " + (moves + 1));
+            }
+            if (!codec.isLegalMove(board, from, to)) {
+                return tally.fail(ILLEGAL, "move " + (moves + 1) + " (" + from + "-" + to + ") is illegal");
+            }
+            board = PackedBoard.move(board, from, to);
+            moves++;
+        }
+        if (board != goal) {
+            return tally.fail(UNSOLVED, "ends at " + codec.format(board));
+        }
+        int distance = oracle.distance(start);
+        if (moves > distance) {
+            tally.excessMoves += moves - distance;
+            return tally.fail(SUBOPTIMAL, moves + " moves instead of " + distance);
+        }
+        return OPTIMAL;
+    }
+
+    private static int code(byte piece) {
+        return switch (piece) {
+            case '.' -> PackedBoard.EMPTY;
+            case 'K' -> PackedBoard.KING;
+            case 'B' -> PackedBoard.BISHOP;
+            case 'R' -> PackedBoard.ROOK;
+            default -> -1;
+        };
+    }
+}
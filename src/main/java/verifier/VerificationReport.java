@@ -0,0 +1,130 @@
+package verifier;
+
+import java.util.List;
+
+/**
+ * The outcome of checking a file of solutions with {@link SolutionVerifier}.
+ * Every non-blank line is counted in exactly one of the categories.
+ */
+public class VerificationReport {
+
+    private final long optimal;
+    private final long suboptimal;
+    private final long unsolved;
+    private final long illegal;
+    private final long malformed;
+    private final long excessMoves;
+    private final List<String> failures;
+
+    /**
+     * Constructs a {@code VerificationReport} with the specified counts.
+     *
+     * @param optimal     the number of optimal solutions
+     * @param suboptimal  the number of solutions longer than optimal
+     * @param unsolved    the number of legal move sequences that do not end at the goal
+     * @param illegal     the number of move sequences with an illegal move
+     * @param malformed   the number of lines that cannot be parsed
+     * @param excessMoves the total number of moves of the suboptimal solutions beyond the optimal length
+     * @param failures    descriptions of some of the lines that are not optimal solutions
+     */
+    public VerificationReport(long optimal, long suboptimal, long unsolved, long illegal, long malformed,
+                              long excessMoves, List<String> failures) {
+        this.optimal = optimal;
+        this.suboptimal = suboptimal;
+        this.unsolved = unsolved;
+        this.illegal = illegal;
+        this.malformed = malformed;
+        this.excessMoves = excessMoves;
+        this.failures = List.copyOf(failures);
+    }
+
+    /**
+     * Returns the number of lines checked.
+     *
+     * @return the number of non-blank lines
+     */
+    public long getTotal() {
+        return optimal + suboptimal + unsolved + illegal + malformed;
+    }
+
+    /**
+     * Returns the number of optimal solutions.
+     *
+     * @return the number of lines whose moves reach the goal in the fewest possible moves
+     */
+    public long getOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Returns the number of solutions that reach the goal in more moves than needed.
+     *
+     * @return the number of suboptimal solutions
+     */
+    public long getSuboptimal() {
+        return suboptimal;
+    }
+
+    /**
+     * Returns the number of legal move sequences that do not end at the goal.
+     *
+     * @return the number of unsolved lines
+     */
+    public long getUnsolved() {
+        return unsolved;
+    }
+
+    /**
+     * Returns the number of move sequences with an illegal move.
+     *
+     * @return the number of illegal lines
+     */
+    public long getIllegal() {
+        return illegal;
+    }
+
+    /**
+     * Returns the number of lines that cannot be parsed.
+     *
+     * @return the number of malformed lines
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * Returns the total number of moves that the suboptimal solutions make beyond the optimal length.
+     *
+     * @return the number of excess moves
+     */
+    public long getExcessMoves() {
+        return excessMoves;
+    }
+
+    /**
+     * Returns descriptions of some of the lines that are not optimal solutions, in the order of the file.
+     *
+     * @return descriptions of the form {@code "line <n>: <reason>"}
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return a summary of the counts
+     */
+    @Override
+    public String toString() {
+        return "VerificationReport{" +
+                "total=" + getTotal() +
+                ", optimal=" + optimal +
+                ", suboptimal=" + suboptimal +
+                ", unsolved=" + unsolved +
+                ", illegal=" + illegal +
+                ", malformed=" + malformed +
+                ", excessMoves=" + excessMoves +
+                '}';
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains classes for checking solutions in bulk.
+ */
+package verifier;
@@ -1,5 +1,6 @@
 package view;
 
+import controller.EndingScreenController;
 import controller.OpeningScreenController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -23,5 +24,8 @@ public class PuzzleGameApplication extends Application {
         stage.show();
     }
 
-
+    @Override
+    public void stop() {
+        EndingScreenController.closeSharedStore();
+    }
 }
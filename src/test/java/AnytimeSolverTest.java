@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+import solver.AnytimeSolver;
+import solver.CancellationToken;
+import solver.Heuristic;
+import solver.PatternDatabase;
+import solver.ProgressListener;
+import solver.SearchBudget;
+import solver.SearchResult;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnytimeSolverTest {
+
+    private final PackedBoard codec = new PackedBoard(2, 3);
+    private final long start = codec.parse("KBB/RR.");
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testFindsOptimalSolutionWithinBudget() {
+        AnytimeSolver solver = new AnytimeSolver(codec, PatternDatabase.build(codec, goal, 1 << PackedBoard.BISHOP));
+        AtomicInteger reports = new AtomicInteger();
+        SearchResult result = solver.solve(start, goal, new SearchBudget(Duration.ofSeconds(10), 1 << 20),
+                new CancellationToken(), (depth, nodes, best) -> reports.incrementAndGet());
+
+        assertEquals(SearchResult.Status.COMPLETED, result.getStatus(), "The search should finish within the budget");
+        assertTrue(result.isOptimal(), "The solution should be proved optimal");
+        assertEquals(11, result.getSolution().orElseThrow().length(), "The puzzle is solved in 11 moves");
+        assertTrue(reports.get() > 0, "Progress should be reported");
+    }
+
+    @Test
+    public void testCancelledSearchStopsImmediately() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        SearchResult result = new AnytimeSolver(codec, Heuristic.ZERO).solve(start, goal,
+                new SearchBudget(Duration.ofSeconds(10), 1 << 20), token, ProgressListener.NONE);
+
+        assertEquals(SearchResult.Status.CANCELLED, result.getStatus(), "The search should report cancellation");
+        assertFalse(result.isOptimal(), "A cancelled search proves nothing");
+    }
+
+    @Test
+    public void testMemoryLimitKeepsBestSolution() {
+        SearchResult result = new AnytimeSolver(codec, Heuristic.ZERO, 4).solve(start, goal,
+                new SearchBudget(Duration.ofSeconds(10), 60 * SearchBudget.BYTES_PER_NODE),
+                new CancellationToken(), ProgressListener.NONE);
+
+        assertEquals(SearchResult.Status.MEMORY_LIMIT, result.getStatus(), "The memory limit should stop the search");
+        result.getSolution().ifPresent(solution ->
+                assertTrue(solution.length() >= 11, "No solution can be shorter than the optimum"));
+    }
+
+    @Test
+    public void testTimeLimitStopsBeamSearch() {
+        PackedBoard large = new PackedBoard(5, 5);
+        long from = large.parse("KBRBR/RBBRB/BRR.B/RBRBR/BRBRB");
+        //The goal has no king, so the beam search alone would run until the memory limit.
+        long to = large.parse("BRBRB/RBBRB/BRR.B/RBRBR/BRBRB");
+        long started = System.nanoTime();
+        SearchResult result = new AnytimeSolver(large, Heuristic.ZERO).solve(from, to,
+                new SearchBudget(Duration.ofMillis(50), (1L << 20) * SearchBudget.BYTES_PER_NODE),
+                new CancellationToken(), ProgressListener.NONE);
+        long elapsed = System.nanoTime() - started;
+
+        assertEquals(SearchResult.Status.TIME_LIMIT, result.getStatus(), "The time limit should stop the search");
+        assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "The search should stop soon after the deadline: "
+                + elapsed / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,92 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzle.BatchExpander;
+import puzzle.PackedBoard;
+import puzzle.ScalarBatchExpander;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vectorized {@link BatchExpander} on batches of random boards.
+ * <p>
+ * Run with {@code mvn -Pvector test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=BatchExpanderBenchmark}; without the {@code vector} profile
+ * both sides measure the scalar expander.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchExpanderBenchmark {
+
+    private static final int BATCH = 4096;
+
+    @Param({"2x3", "4x4", "4x8"})
+    public String size;
+
+    private long[] states;
+    private long[] successors;
+    private boolean[] matches;
+    private long goal;
+    private BatchExpander scalar;
+    private BatchExpander vector;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        PackedBoard codec = new PackedBoard(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        Random random = new Random(42);
+        states = new long[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            char[][] board = new char[codec.rows()][codec.cols()];
+            for (char[] row : board) {
+                for (int col = 0; col < row.length; col++) {
+                    row[col] = "KBR".charAt(random.nextInt(3));
+                }
+            }
+            board[random.nextInt(codec.rows())][random.nextInt(codec.cols())] = ' ';
+            states[i] = codec.pack(board);
+        }
+        goal = states[BATCH / 2];
+        successors = new long[codec.squares() * BATCH];
+        matches = new boolean[BATCH];
+        scalar = new ScalarBatchExpander(codec);
+        vector = BatchExpander.create(codec);
+    }
+
+    @Benchmark
+    public long[] expandScalar() {
+        scalar.expand(states, BATCH, successors);
+        return successors;
+    }
+
+    @Benchmark
+    public long[] expandVector() {
+        vector.expand(states, BATCH, successors);
+        return successors;
+    }
+
+    @Benchmark
+    public boolean[] matchGoalScalar() {
+        scalar.matchGoal(states, BATCH, goal, matches);
+        return matches;
+    }
+
+    @Benchmark
+    public boolean[] matchGoalVector() {
+        vector.matchGoal(states, BATCH, goal, matches);
+        return matches;
+    }
+}
@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+import puzzle.BatchExpander;
+import puzzle.PackedBoard;
+import puzzle.ScalarBatchExpander;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchExpanderTest {
+
+    private static long[] randomBoards(PackedBoard codec, Random random, int count) {
+        long[] boards = new long[count];
+        for (int i = 0; i < count; i++) {
+            char[][] board = new char[codec.rows()][codec.cols()];
+            for (char[] row : board) {
+                for (int col = 0; col < row.length; col++) {
+                    row[col] = "KBR".charAt(random.nextInt(3));
+                }
+            }
+            board[random.nextInt(codec.rows())][random.nextInt(codec.cols())] = ' ';
+            boards[i] = codec.pack(board);
+        }
+        return boards;
+    }
+
+    @Test
+    public void testCreatedMatchesScalar() {
+        Random random = new Random(3);
+        for (PackedBoard codec : new PackedBoard[]{new PackedBoard(2, 3), new PackedBoard(4, 4), new PackedBoard(4, 8)}) {
+            int count = 103; //Not a multiple of any vector length, so the tail is exercised
+            long[] boards = randomBoards(codec, random, count);
+            long[] expected = new long[codec.squares() * count];
+            long[] actual = new long[codec.squares() * count];
+            new ScalarBatchExpander(codec).expand(boards, count, expected);
+            BatchExpander.create(codec).expand(boards, count, actual);
+            assertArrayEquals(expected, actual, "Batch successors should match the scalar ones");
+
+            long[] successors = new long[codec.squares()];
+            for (int i = 0; i < count; i++) {
+                int n = codec.successors(boards[i], successors);
+                int index = i;
+                for (int from = 0; from < codec.squares(); from++) {
+                    long successor = expected[from * count + index];
+                    if (successor != BatchExpander.NO_MOVE) {
+                        assertTrue(Arrays.stream(successors, 0, n).anyMatch(s -> s == successor),
+                                "Batch successors should be legal moves");
+                    }
+                }
+                assertEquals(n, (int) IntStream.range(0, codec.squares())
+                        .filter(from -> expected[from * count + index] != BatchExpander.NO_MOVE).count(),
+                        "Every legal move should be found");
+            }
+        }
+    }
+
+    @Test
+    public void testGoalMatches() {
+        PackedBoard codec = new PackedBoard(2, 3);
+        long goal = codec.parse("BB./RRK");
+        long[] boards = new long[21];
+        Arrays.fill(boards, codec.parse("KBB/RR."));
+        boards[4] = goal;
+        boards[20] = goal;
+        boolean[] expected = new boolean[boards.length];
+        expected[4] = true;
+        expected[20] = true;
+
+        boolean[] matches = new boolean[boards.length];
+        BatchExpander.create(codec).matchGoal(boards, boards.length, goal, matches);
+        assertArrayEquals(expected, matches, "Only the goal boards should match");
+    }
+}
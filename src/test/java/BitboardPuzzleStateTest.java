@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.Test;
+import puzzle.BitboardPuzzleState;
+import puzzle.Move;
+import puzzle.Position;
+import puzzle.PuzzleState;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitboardPuzzleStateTest {
+
+    private static PuzzleState randomState(Random random, int rows, int cols) {
+        char[][] board = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                board[row][col] = "KBBRRR".charAt(random.nextInt(6));
+            }
+        }
+        Position empty = new Position(random.nextInt(rows), random.nextInt(cols));
+        board[empty.row()][empty.col()] = ' ';
+        return new PuzzleState(board, empty);
+    }
+
+    @Test
+    public void testLegalMovesMatchPuzzleState() {
+        Random random = new Random(1);
+        int[][] sizes = {{2, 3}, {3, 3}, {4, 5}, {8, 8}, {1, 8}};
+        for (int[] size : sizes) {
+            for (int i = 0; i < 200; i++) {
+                PuzzleState state = randomState(random, size[0], size[1]);
+                BitboardPuzzleState bitboard = new BitboardPuzzleState(state);
+                assertEquals(state.getLegalMoves(), bitboard.getLegalMoves(), "Legal moves should match on " + state);
+
+                for (Move move : state.getLegalMoves()) {
+                    PuzzleState next = state.clone();
+                    next.makeMove(move);
+                    BitboardPuzzleState nextBitboard = bitboard.clone();
+                    nextBitboard.makeMove(move);
+                    assertEquals(next, nextBitboard.toPuzzleState(), "Moves should have the same effect");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSolvedAfterReadmeSolution() {
+        BitboardPuzzleState state = new BitboardPuzzleState();
+        int[][] moves = {{0, 1, 1, 2}, {0, 0, 0, 1}, {1, 0, 0, 0}, {1, 1, 1, 0}, {0, 2, 1, 1}, {0, 1, 0, 2},
+                {0, 0, 0, 1}, {1, 1, 0, 0}, {0, 1, 1, 1}, {1, 2, 0, 1}, {0, 2, 1, 2}};
+        for (int[] move : moves) {
+            assertFalse(state.isSolved(), "The puzzle should not be solved before the last move");
+            state.makeMove(new Move(new Position(move[0], move[1]), new Position(move[2], move[3])));
+        }
+        assertTrue(state.isSolved(), "The puzzle should be solved after the README solution");
+    }
+
+    @Test
+    public void testIllegalMoveIsRejected() {
+        BitboardPuzzleState state = new BitboardPuzzleState();
+        Move blocked = new Move(new Position(1, 0), new Position(1, 2));
+        assertFalse(state.isLegalMove(blocked), "A rook cannot jump over another rook");
+        assertThrows(IllegalArgumentException.class, () -> state.makeMove(blocked), "Illegal moves should be rejected");
+    }
+}
@@ -0,0 +1,151 @@
+import org.junit.jupiter.api.Test;
+import puzzle.GoalPattern;
+import puzzle.PackedBoard;
+import puzzle.PuzzleSnapshot;
+import puzzle.PuzzleState;
+import puzzle.StateIndexer;
+import solver.AnytimeSolver;
+import solver.CancellationToken;
+import solver.Heuristic;
+import solver.IdaStarSolver;
+import solver.ParallelIdaStarSolver;
+import solver.ProgressListener;
+import solver.SearchBudget;
+import solver.SearchResult;
+import solver.Solution;
+import solver.TranspositionTable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GoalPatternTest {
+
+    private final PackedBoard codec = PackedBoard.of(2, 3);
+    private final long start = codec.parse("KBB/RR.");
+    private final long goal = codec.parse("BB./RRK");
+
+    //The smallest number of moves from the start to a board accepted by the goal, by breadth-first search.
+    private int nearest(GoalPattern target) {
+        Set<Long> seen = new HashSet<>(List.of(start));
+        List<Long> layer = List.of(start);
+        long[] successors = new long[codec.squares()];
+        for (int distance = 0; !layer.isEmpty(); distance++) {
+            List<Long> next = new ArrayList<>();
+            for (long state : layer) {
+                if (target.matches(state)) {
+                    return distance;
+                }
+                int count = codec.successors(state, successors);
+                for (int i = 0; i < count; i++) {
+                    if (seen.add(successors[i])) {
+                        next.add(successors[i]);
+                    }
+                }
+            }
+            layer = next;
+        }
+        return -1;
+    }
+
+    @Test
+    public void testExactGoalMatchesOneBoard() {
+        GoalPattern exact = GoalPattern.exact(codec, goal);
+        StateIndexer indexer = StateIndexer.forBoard(codec, goal);
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            long board = indexer.unrank(rank);
+            assertEquals(board == goal, exact.matches(board), "Only the goal should match " + codec.format(board));
+        }
+        assertEquals("BB./RRK", exact.toString(), "The exact goal has no wildcards");
+        assertTrue(PuzzleSnapshot.of(new PuzzleState()).isSolved(GoalPattern.parse(codec, "K??/???")),
+                "The start has the king in the top left corner");
+    }
+
+    @Test
+    public void testWildcardsAndAlternatives() {
+        GoalPattern kingInCorner = GoalPattern.parse(codec, "??K/???");
+        GoalPattern twoBoards = GoalPattern.parse(codec, "BB./RRK|BB./RKR");
+        GoalPattern either = GoalPattern.anyOf(kingInCorner, twoBoards);
+        StateIndexer indexer = StateIndexer.forBoard(codec, goal);
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            long board = indexer.unrank(rank);
+            String text = codec.format(board);
+            boolean corner = text.charAt(2) == 'K';
+            boolean listed = text.equals("BB./RRK") || text.equals("BB./RKR");
+            assertEquals(corner, kingInCorner.matches(board), "The king is in the corner of " + text);
+            assertEquals(listed, twoBoards.matches(board), "Only the listed boards should match " + text);
+            assertEquals(corner || listed, either.matches(board), "Any of the goals should accept " + text);
+        }
+        GoalPattern reparsed = GoalPattern.parse(codec, either.toString());
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            assertEquals(either.matches(indexer.unrank(rank)), reparsed.matches(indexer.unrank(rank)),
+                    "The text form should describe the same goal");
+        }
+        assertThrows(IllegalArgumentException.class, () -> GoalPattern.parse(codec, "??K/??"),
+                "Patterns must have the size of the board");
+    }
+
+    @Test
+    public void testManyBoardsAndEmptySquares() {
+        StateIndexer indexer = StateIndexer.forBoard(codec, goal);
+        StringBuilder everyThird = new StringBuilder("?.?/???"); //Only empty squares required, so the value is zero
+        for (long rank = 0; rank < indexer.size(); rank += 3) {
+            everyThird.append('|').append(codec.format(indexer.unrank(rank)));
+        }
+        GoalPattern target = GoalPattern.parse(codec, everyThird.toString());
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            long board = indexer.unrank(rank);
+            String text = codec.format(board);
+            assertEquals(rank % 3 == 0 || text.charAt(1) == '.', target.matches(board),
+                    "Only the listed boards and those with an empty top middle square should match " + text);
+        }
+    }
+
+    @Test
+    public void testSolversStopAtNearestMatch() {
+        for (String text : new String[]{"??K/???", "???/K??|?K?/???", "BB./RRK"}) {
+            GoalPattern target = GoalPattern.parse(codec, text);
+            int expected = nearest(target);
+
+            Solution solution = new IdaStarSolver(codec, Heuristic.ZERO).solve(start, target).orElseThrow();
+            assertEquals(expected, solution.length(), "IDA* should find the nearest match of " + text);
+            long[] states = solution.getStates();
+            assertTrue(target.matches(states[states.length - 1]), "The solution should end at a match");
+
+            assertEquals(expected, new ParallelIdaStarSolver(codec, Heuristic.ZERO, null)
+                    .solve(start, target).orElseThrow().length(), "Parallel IDA* should agree for " + text);
+
+            SearchResult result = new AnytimeSolver(codec, Heuristic.ZERO).solve(start, target,
+                    new SearchBudget(Duration.ofSeconds(10), 1 << 20), new CancellationToken(), ProgressListener.NONE);
+            assertTrue(result.isOptimal(), "The anytime solver should prove optimality for " + text);
+            assertEquals(expected, result.getSolution().orElseThrow().length(),
+                    "The anytime solver should agree for " + text);
+        }
+    }
+
+    @Test
+    public void testTableIsNotReusedAcrossGoals() {
+        TranspositionTable table = new TranspositionTable(1);
+        IdaStarSolver cached = new IdaStarSolver(codec, Heuristic.ZERO, table);
+        assertEquals(11, cached.solve(start, goal).orElseThrow().length(), "The table is filled for the exact goal");
+        for (String text : new String[]{"B??/???", "??K/???", "???/K??|?K?/???"}) {
+            GoalPattern target = GoalPattern.parse(codec, text);
+            int expected = nearest(target);
+            assertEquals(expected, cached.solve(start, target).orElseThrow().length(),
+                    "Bounds stored for another goal must not be used for " + text);
+            assertEquals(expected, new ParallelIdaStarSolver(codec, Heuristic.ZERO, table)
+                    .solve(start, target).orElseThrow().length(), "Parallel IDA* should agree for " + text);
+        }
+
+        assertEquals(GoalPattern.exact(codec, goal), GoalPattern.parse(codec, "BB./RRK"), "The goals are the same");
+        cached.solve(start, goal);
+        long cold = cached.getExpandedNodes();
+        assertEquals(11, cached.solve(start, GoalPattern.parse(codec, "BB./RRK")).orElseThrow().length(),
+                "The same goal should be solved again");
+        assertTrue(cached.getExpandedNodes() < cold, "The table should be kept for the same goal");
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+import solver.IdaStarSolver;
+import solver.Heuristic;
+import tablebase.Mod3Tablebase;
+import tablebase.Mod3TablebaseBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Mod3TablebaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDistancesMatchSearch() throws IOException {
+        PackedBoard codec = new PackedBoard(2, 3);
+        long goal = codec.parse("BB./RRK");
+        Path file = tempDir.resolve("puzzle.tb");
+        new Mod3TablebaseBuilder(codec, goal).build(file);
+        Mod3Tablebase tablebase = Mod3Tablebase.open(file);
+
+        assertEquals(11, tablebase.distance(codec.parse("KBB/RR.")), "The puzzle is solved in 11 moves");
+        assertEquals(0, tablebase.distance(goal), "The goal is at distance 0");
+
+        StateIndexer indexer = StateIndexer.forBoard(codec, goal);
+        IdaStarSolver solver = new IdaStarSolver(codec, Heuristic.ZERO);
+        for (long rank = 0; rank < indexer.size(); rank += 7) {
+            long state = indexer.unrank(rank);
+            int distance = tablebase.distance(state);
+            if (distance >= 0) {
+                assertEquals(solver.solve(state, goal).orElseThrow().length(), distance,
+                        "Tablebase distance should be optimal for " + codec.format(state));
+            }
+        }
+    }
+
+    @Test
+    public void testUnreachableBoards() throws IOException {
+        //On a 1x4 board only the king can pass the empty square, so the rooks can never swap sides with it.
+        PackedBoard codec = new PackedBoard(1, 4);
+        long goal = codec.parse("RK.B");
+        Path file = tempDir.resolve("line.tb");
+        new Mod3TablebaseBuilder(codec, goal).build(file);
+        Mod3Tablebase tablebase = Mod3Tablebase.open(file);
+
+        assertEquals(Mod3Tablebase.UNREACHABLE, tablebase.distanceMod3(codec.parse("KR.B")),
+                "The king cannot pass the rook");
+        assertEquals(-1, tablebase.distance(codec.parse("KR.B")), "Unreachable boards have no distance");
+        assertEquals(1, tablebase.distance(codec.parse("R.KB")), "One king step away");
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+import puzzle.PuzzleState;
+import solver.OptimalSolutions;
+import solver.Solution;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimalSolutionsTest {
+
+    private final PackedBoard codec = new PackedBoard(2, 3);
+    private final long start = codec.parse("KBB/RR.");
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testCountMatchesEnumeration() {
+        OptimalSolutions solutions = OptimalSolutions.of(codec, start, goal);
+        assertEquals(11, solutions.getLength(), "The shortest solutions have 11 moves");
+
+        Set<Solution> enumerated = new HashSet<>();
+        for (Solution solution : solutions) {
+            assertEquals(11, solution.length(), "Every enumerated solution should be optimal");
+            PuzzleState state = codec.toState(start);
+            solution.toMoves(codec).forEach(state::makeMove);
+            assertTrue(state.isSolved(), "Every enumerated solution should solve the puzzle");
+            enumerated.add(solution);
+        }
+        assertEquals(solutions.count(), enumerated.size(), "The count should match the distinct solutions");
+    }
+
+    //The number of move sequences of exactly the given length from a board to the goal, by trying all of them.
+    private static long countPaths(PackedBoard codec, long board, long goal, int moves) {
+        if (moves == 0) {
+            return board == goal ? 1 : 0;
+        }
+        long[] successors = new long[codec.squares()];
+        int count = codec.successors(board, successors);
+        long paths = 0;
+        for (int i = 0; i < count; i++) {
+            paths += countPaths(codec, successors[i], goal, moves - 1);
+        }
+        return paths;
+    }
+
+    @Test
+    public void testSeveralSolutionsMatchBruteForce() {
+        PackedBoard large = new PackedBoard(3, 3);
+        String[][] puzzles = {{".KR/RBB", "BB./RRK"}, {"BRR/B.B/KBR", "BBR/BR./RBK"}};
+        for (String[] puzzle : puzzles) {
+            PackedBoard board = puzzle[0].length() == 7 ? codec : large;
+            long from = board.parse(puzzle[0]);
+            long to = board.parse(puzzle[1]);
+            OptimalSolutions solutions = OptimalSolutions.of(board, from, to);
+            long expected = countPaths(board, from, to, solutions.getLength());
+            assertTrue(expected > 1, puzzle[0] + " should have several shortest solutions");
+            assertEquals(0, countPaths(board, from, to, solutions.getLength() - 1), "No shorter solution exists");
+            assertEquals(expected, solutions.count(), "The count should match brute force for " + puzzle[0]);
+
+            Set<Solution> enumerated = new HashSet<>();
+            solutions.forEach(enumerated::add);
+            assertEquals(expected, enumerated.size(), "Every shortest solution should be enumerated once");
+        }
+    }
+
+    @Test
+    public void testStartIsGoal() {
+        OptimalSolutions solutions = OptimalSolutions.of(codec, goal, goal);
+        assertEquals(0, solutions.getLength(), "No moves are needed");
+        assertEquals(1, solutions.count(), "The empty solution is the only one");
+    }
+
+    @Test
+    public void testRejectsGoalWithOtherPieces() {
+        assertThrows(IllegalArgumentException.class, () -> OptimalSolutions.of(codec, start, codec.parse("BB./RRB")),
+                "A goal with other pieces has no index among the boards of the start");
+        assertTrue(OptimalSolutions.of(codec, start, goal).isCountExact(), "One solution is counted exactly");
+    }
+}
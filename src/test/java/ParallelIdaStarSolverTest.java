@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+import solver.CancellationToken;
+import solver.Heuristic;
+import solver.OptimalSolutions;
+import solver.ParallelIdaStarSolver;
+import solver.PatternDatabase;
+import solver.Solution;
+import solver.TranspositionTable;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelIdaStarSolverTest {
+
+    private final PackedBoard codec = PackedBoard.of(2, 3);
+    private final long start = codec.parse("KBB/RR.");
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testSolutionIsOptimalAndConnected() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelIdaStarSolver solver = new ParallelIdaStarSolver(codec, Heuristic.ZERO, null, pool, 2);
+            Solution solution = solver.solve(start, goal).orElseThrow();
+
+            assertEquals(11, solution.length(), "The puzzle is solved in 11 moves");
+            long[] states = solution.getStates();
+            assertEquals(start, states[0], "The solution should begin at the start");
+            assertEquals(goal, states[states.length - 1], "The solution should end at the goal");
+            for (int i = 1; i < states.length; i++) {
+                assertTrue(isSuccessor(states[i - 1], states[i]), "Every step should be a legal move");
+            }
+            assertTrue(solver.getExpandedNodes() > 0, "Expanded nodes should be counted");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEveryReachableBoardGetsItsOptimalLength() {
+        Heuristic heuristic = PatternDatabase.build(codec, goal, 1 << PackedBoard.BISHOP);
+        ParallelIdaStarSolver solver = new ParallelIdaStarSolver(codec, heuristic, new TranspositionTable(1));
+        StateIndexer indexer = StateIndexer.forBoard(codec, goal);
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            long board = indexer.unrank(rank);
+            int expected = OptimalSolutions.of(codec, board, goal).getLength();
+            if (expected < 0) {
+                continue; //IDA* only terminates on unsolvable boards if the heuristic detects them
+            }
+            int actual = solver.solve(board, goal).orElseThrow().length();
+            assertEquals(expected, actual, "Optimal length of " + codec.format(board));
+        }
+    }
+
+    @Test
+    public void testCancelledSearchReturnsNothing() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        ParallelIdaStarSolver solver = new ParallelIdaStarSolver(codec, Heuristic.ZERO, null);
+
+        assertTrue(solver.solve(start, goal, token).isEmpty(), "A cancelled search should find nothing");
+    }
+
+    private boolean isSuccessor(long from, long to) {
+        long[] successors = new long[codec.squares()];
+        int count = codec.successors(from, successors);
+        for (int i = 0; i < count; i++) {
+            if (successors[i] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+import analysis.LayerListener;
+import analysis.StateSpaceAnalyzer;
+import distributed.PartitionedSearch;
+import distributed.WorkerLauncher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedSearchTest {
+
+    private final PackedBoard codec = PackedBoard.of(2, 3);
+    private final long goal = codec.parse("BB./RRK");
+
+    @TempDir
+    Path checkpoints;
+
+    @Test
+    public void testLayersMatchSingleProcessSearch() throws IOException {
+        long[] expected = new StateSpaceAnalyzer(codec, goal).analyze(goal, 0, LayerListener.NONE).getDistanceCounts();
+        List<Long> reported = new ArrayList<>();
+        long[] layers = new PartitionedSearch(codec, 3, WorkerLauncher.threads())
+                .search(goal, (distance, boards, reached) -> reported.add(boards));
+
+        assertArrayEquals(expected, layers, "The partitioned layers should match a single search");
+        assertEquals(expected.length, reported.size(), "Every layer should be reported");
+    }
+
+    @Test
+    public void testSingleWorker() throws IOException {
+        long[] layers = new PartitionedSearch(codec, 1, WorkerLauncher.threads())
+                .search(codec.parse("KBB/RR."), LayerListener.NONE);
+
+        assertEquals(108, Arrays.stream(layers).sum(), "One worker owns every board");
+    }
+
+    @Test
+    public void testWorkerExitingBeforeHelloFailsSearch() {
+        WorkerLauncher.Handle exited = new WorkerLauncher.Handle() {
+            @Override
+            public boolean isAlive() {
+                return false;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+        WorkerLauncher launcher = (driverPort, shard, checkpoints) ->
+                shard == 1 ? exited : WorkerLauncher.threads().launch(driverPort, shard, checkpoints);
+        long startTime = System.currentTimeMillis();
+
+        PartitionedSearch search = new PartitionedSearch(codec, 3, launcher);
+        assertThrows(IOException.class, () -> search.search(goal, LayerListener.NONE),
+                "A worker that exits before connecting should fail the search");
+        assertTrue(System.currentTimeMillis() - startTime < 5_000, "The search should not wait for the timeout");
+    }
+
+    @Test
+    public void testDuplicateShardIsRejected() {
+        WorkerLauncher launcher = (driverPort, shard, checkpoints) ->
+                WorkerLauncher.threads().launch(driverPort, 0, checkpoints);
+
+        PartitionedSearch search = new PartitionedSearch(codec, 2, launcher);
+        assertThrows(IOException.class, () -> search.search(goal, LayerListener.NONE),
+                "Two workers claiming the same shard should fail the search");
+    }
+
+    @Test
+    public void testResumesAfterLastLayerOfEveryShard() throws IOException {
+        long[] expected = new StateSpaceAnalyzer(codec, goal).analyze(goal, 0, LayerListener.NONE).getDistanceCounts();
+        PartitionedSearch search = new PartitionedSearch(codec, 3, WorkerLauncher.threads());
+        assertArrayEquals(expected, search.search(goal, LayerListener.NONE, checkpoints),
+                "Checkpointing should not change the layers");
+        Path damaged = checkpoints.resolve("shard-1").resolve("layer-0005.bin");
+        assertTrue(Files.size(damaged) > 0, "The damaged layer should hold boards of the shard");
+        byte[] bytes = Files.readAllBytes(damaged);
+        bytes[0] ^= 1;
+        Files.write(damaged, bytes);
+        //Any layer written again gets the current time, so the saved layers are dated back to tell them apart.
+        FileTime past = FileTime.fromMillis(0);
+        for (int shard = 0; shard < 3; shard++) {
+            for (int distance = 0; distance < expected.length; distance++) {
+                Files.setLastModifiedTime(layerFile(shard, distance), past);
+            }
+        }
+
+        List<Long> reported = new ArrayList<>();
+        long[] layers = search.search(goal, (distance, boards, reached) -> reported.add(boards), checkpoints);
+        assertArrayEquals(expected, layers, "Resuming from layer 4 should give the same layers");
+        assertEquals(expected.length, reported.size(), "The restored layers should be reported too");
+        for (int shard = 0; shard < 3; shard++) {
+            for (int distance = 0; distance <= 4; distance++) {
+                assertEquals(past, Files.getLastModifiedTime(layerFile(shard, distance)),
+                        "Layer " + distance + " of shard " + shard + " should be read back, not searched again");
+            }
+            assertNotEquals(past, Files.getLastModifiedTime(layerFile(shard, 5)),
+                    "Layer 5 of shard " + shard + " should be searched again");
+        }
+    }
+
+    private Path layerFile(int shard, int distance) {
+        return checkpoints.resolve("shard-" + shard).resolve(String.format("layer-%04d.bin", distance));
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.PackedBoard;
+import puzzle.StateIndexer;
+import solver.Heuristic;
+import solver.IdaStarSolver;
+import solver.PatternDatabase;
+import solver.Solution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternDatabaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PackedBoard codec = new PackedBoard(2, 3);
+    private final long start = codec.parse("KBB/RR.");
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testIndexerRoundTrip() {
+        StateIndexer indexer = StateIndexer.forBoard(codec, start);
+        assertEquals(180, indexer.size(), "There are 6!/(2!2!) arrangements of K, B, B, R, R and the empty square");
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            assertEquals(rank, indexer.rank(indexer.unrank(rank)), "Ranking should invert unranking");
+        }
+    }
+
+    @Test
+    public void testIdaStarWithPatternDatabaseIsOptimal() {
+        Heuristic heuristic = Heuristic.max(
+                PatternDatabase.build(codec, goal, 1 << PackedBoard.BISHOP | 1 << PackedBoard.ROOK),
+                PatternDatabase.build(codec, goal, 1 << PackedBoard.KING | 1 << PackedBoard.BISHOP));
+        IdaStarSolver informed = new IdaStarSolver(codec, heuristic);
+        IdaStarSolver blind = new IdaStarSolver(codec, Heuristic.ZERO);
+
+        Solution solution = informed.solve(start, goal).orElseThrow();
+        assertEquals(11, solution.length(), "The puzzle is solved in 11 moves");
+        assertEquals(11, blind.solve(start, goal).orElseThrow().length(), "Both searches should be optimal");
+        assertTrue(informed.getExpandedNodes() < blind.getExpandedNodes(),
+                "The pattern database should reduce the number of expanded nodes");
+    }
+
+    @Test
+    public void testSaveAndLazyLoad() throws IOException {
+        PatternDatabase built = PatternDatabase.build(codec, goal, 1 << PackedBoard.BISHOP);
+        Path file = tempDir.resolve("bishops.pdb.gz");
+        built.save(file);
+
+        PatternDatabase loaded = PatternDatabase.open(file);
+        StateIndexer indexer = StateIndexer.forBoard(codec, start);
+        for (long rank = 0; rank < indexer.size(); rank++) {
+            long state = indexer.unrank(rank);
+            assertEquals(built.estimate(state), loaded.estimate(state), "Loaded estimates should match");
+        }
+        assertEquals(0, loaded.estimate(goal), "The goal is at distance 0");
+    }
+}
@@ -0,0 +1,250 @@
+import controller.EndingScreenController;
+import controller.PuzzleGameController;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.event.Event;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import leaderboard.ResultStore;
+import puzzle.Move;
+import puzzle.PackedBoard;
+import puzzle.Position;
+import puzzle.PuzzleState;
+import solver.OptimalSolutions;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the responsiveness of {@link PuzzleGameController} without a display.
+ * <p>
+ * JavaFX runs on the headless Monocle platform with the software renderer. Every run loads the game screen,
+ * starts it from the benchmarked board and clicks a scripted sequence of squares: the optimal solution for the
+ * standard puzzle, or a random walk for other boards. Clicks are delivered as {@code MOUSE_CLICKED} events on the
+ * rendered cells, so they reach the controller through the same handler as a real click. For every move, the
+ * harness records the time from the click to the end of the layout of the next pulse, which is when the new board
+ * is handed to the renderer, and the bytes allocated on the JavaFX thread in between. For the solution script,
+ * it also records the time from the first click until the ending screen is shown. The results of the solved
+ * runs go to a store in a temporary directory, which is deleted afterwards, not to the player's leaderboard.
+ * <p>
+ * Usage: {@code [board] [moves] [runs]}, for example {@code KBR/RB./BRK 200 20}; the default is the standard
+ * puzzle. Run with {@code mvn -Pgui-benchmark test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=PuzzleGameGuiBenchmark}; the profile adds Monocle and the JavaFX release it is built for.
+ */
+public class PuzzleGameGuiBenchmark {
+
+    private static final String ENDING_TITLE = "Congratulations!";
+    private static final int WARMUP_RUNS = 5;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final PuzzleState start;
+    private final List<Position> clicks;
+    private final boolean solves;
+
+    private Stage stage;
+    private ResultStore results;
+    private volatile long endingShownAt;
+
+    private PuzzleGameGuiBenchmark(PuzzleState start, List<Position> clicks, boolean solves) {
+        this.start = start;
+        this.clicks = clicks;
+        this.solves = solves;
+    }
+
+    public static void main(String[] args) throws Exception {
+        //Must be set before the toolkit starts.
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        System.setProperty("prism.text", "t2k");
+        System.setProperty("java.awt.headless", "true");
+
+        String text = args.length > 0 ? args[0] : "KBB/RR.";
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        PackedBoard codec = PackedBoard.forText(text);
+        long board = codec.parse(text);
+
+        PuzzleGameGuiBenchmark benchmark;
+        OptimalSolutions solutions = codec.rows() == 2 && codec.cols() == 3
+                ? OptimalSolutions.of(codec, board, codec.parse("BB./RRK"))
+                : null;
+        if (solutions != null && solutions.getLength() > 0) {
+            List<Position> clicks = solutions.iterator().next().toMoves(codec)
+                    .stream().map(Move::getFrom).toList();
+            benchmark = new PuzzleGameGuiBenchmark(codec.toState(board), clicks, true);
+        } else {
+            benchmark = new PuzzleGameGuiBenchmark(codec.toState(board), randomWalk(codec, board, moves), false);
+        }
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Path directory = Files.createTempDirectory("puzzle-benchmark");
+        Path file = directory.resolve("results.log");
+        try (ResultStore results = ResultStore.open(file)) {
+            benchmark.results = results;
+            benchmark.run(text, runs);
+            EndingScreenController.closeSharedStore(); //Waits for the results still being saved
+        } finally {
+            Platform.exit();
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    //The squares to click for a walk of legal moves; each click moves the piece on the square to the empty one.
+    private static List<Position> randomWalk(PackedBoard codec, long board, int moves) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] successors = new long[codec.squares()];
+        List<Position> clicks = new ArrayList<>();
+        for (int i = 0; i < moves; i++) {
+            board = successors[random.nextInt(codec.successors(board, successors))];
+            int from = codec.emptySquare(board);
+            clicks.add(new Position(from / codec.cols(), from % codec.cols()));
+        }
+        return clicks;
+    }
+
+    private void run(String board, int runs) throws Exception {
+        onFxThread(() -> {
+            stage = new Stage();
+            Window.getWindows().addListener((ListChangeListener<Window>) change -> {
+                while (change.next()) {
+                    for (Window window : change.getAddedSubList()) {
+                        if (window instanceof Stage shown && ENDING_TITLE.equals(shown.getTitle())) {
+                            endingShownAt = System.nanoTime();
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            runOnce();
+        }
+        long[] latencies = new long[runs * clicks.size()];
+        long[] allocations = new long[runs * clicks.size()];
+        long[] endings = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[][] run = runOnce();
+            System.arraycopy(run[0], 0, latencies, i * clicks.size(), clicks.size());
+            System.arraycopy(run[1], 0, allocations, i * clicks.size(), clicks.size());
+            endings[i] = run[2][0];
+        }
+
+        System.out.printf("Board %s, %d clicks per run, %d runs%n", board, clicks.size(), runs);
+        System.out.printf("Click to rendered (us): median %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                percentile(latencies, 50) / 1e3, percentile(latencies, 90) / 1e3,
+                percentile(latencies, 99) / 1e3, percentile(latencies, 100) / 1e3);
+        System.out.printf("Allocated per move (KB): mean %.1f, max %.1f%n",
+                Arrays.stream(allocations).average().orElse(0) / 1024, percentile(allocations, 100) / 1024.0);
+        if (solves) {
+            System.out.printf("First click to ending screen (ms): median %.2f, max %.2f%n",
+                    percentile(endings, 50) / 1e6, percentile(endings, 100) / 1e6);
+        }
+    }
+
+    //Plays the script once; returns the latencies, the allocations and the time to the ending screen.
+    private long[][] runOnce() throws Exception {
+        PuzzleGameController controller = onFxThread(() -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/puzzle_game.fxml"));
+            Parent root = loader.load();
+            PuzzleGameController game = loader.getController();
+            game.setPrimaryStage(stage);
+            game.setPlayerName("benchmark");
+            game.setResultStore(results);
+            game.setState(start);
+            stage.setScene(new Scene(root));
+            stage.show();
+            return game;
+        });
+        endingShownAt = 0;
+        long[] latencies = new long[clicks.size()];
+        long[] allocations = new long[clicks.size()];
+        long firstClick = 0;
+        for (int i = 0; i < clicks.size(); i++) {
+            long[] sample = click(clicks.get(i));
+            firstClick = i == 0 ? sample[2] : firstClick;
+            latencies[i] = sample[0];
+            allocations[i] = sample[1];
+        }
+        if (solves && !controller.getSnapshot().isSolved()) {
+            throw new IllegalStateException("The script did not solve the puzzle");
+        }
+        long ending = solves && endingShownAt != 0 ? endingShownAt - firstClick : -1;
+        onFxThread(() -> {
+            for (Window window : List.copyOf(Window.getWindows())) {
+                if (window != stage) {
+                    window.hide();
+                }
+            }
+            return null;
+        });
+        return new long[][]{latencies, allocations, {ending}};
+    }
+
+    //Clicks a square and waits for the next pulse's layout; returns the latency, the allocated bytes and the click time.
+    private long[] click(Position square) throws Exception {
+        CompletableFuture<long[]> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            Scene scene = stage.getScene();
+            GridPane grid = (GridPane) scene.getRoot();
+            Node cell = grid.getChildren().stream()
+                    .filter(node -> Integer.valueOf(square.row()).equals(GridPane.getRowIndex(node))
+                            && Integer.valueOf(square.col()).equals(GridPane.getColumnIndex(node)))
+                    .findFirst()
+                    .orElseThrow();
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long clickedAt = System.nanoTime();
+            Runnable[] listener = new Runnable[1];
+            listener[0] = () -> {
+                long renderedAt = System.nanoTime();
+                long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                scene.removePostLayoutPulseListener(listener[0]);
+                done.complete(new long[]{renderedAt - clickedAt, allocated, clickedAt});
+            };
+            scene.addPostLayoutPulseListener(listener[0]);
+            Event.fireEvent(cell, new MouseEvent(MouseEvent.MOUSE_CLICKED, 50, 50, 50, 50, MouseButton.PRIMARY, 1,
+                    false, false, false, false, false, false, false, false, false, true, null));
+            Platform.requestNextPulse();
+        });
+        return done.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static <T> T onFxThread(Callable<T> action) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.call());
+            } catch (Exception | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static double percentile(long[] values, int percent) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(percent / 100.0 * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,45 @@
+import generator.PuzzleGenerator;
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PuzzleGeneratorTest {
+
+    private final PackedBoard codec = new PackedBoard(2, 3);
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testExactDistance() throws IOException {
+        StringWriter out = new StringWriter();
+        int written = new PuzzleGenerator(codec, goal).generateExact(11, 11, 1000, 42, out);
+
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(written, lines.length, "Every generated instance should be written");
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.equals("KBB/RR. 11")),
+                "The initial configuration is 11 moves from the goal");
+        assertTrue(Arrays.stream(lines).allMatch(line -> line.endsWith(" 11")), "Only distance 11 should be written");
+    }
+
+    @Test
+    public void testRandomWalkIsDeduplicatedAndInRange() throws IOException {
+        StringWriter out = new StringWriter();
+        int written = new PuzzleGenerator(codec, goal).generateByRandomWalk(3, 6, 10, 12, 7, out);
+
+        String[] lines = out.toString().split(System.lineSeparator());
+        Set<String> boards = new HashSet<>();
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            int distance = Integer.parseInt(parts[1]);
+            assertTrue(distance >= 3 && distance <= 6, "Distance should be in range: " + line);
+            assertTrue(boards.add(parts[0]), "Instances should not repeat: " + line);
+        }
+        assertEquals(10, written, "The requested number of instances should be written");
+    }
+}
@@ -1,3 +1,4 @@
+import puzzle.PuzzleSnapshot;
 import puzzle.PuzzleState;
 import puzzle.Move;
 import puzzle.Position;
@@ -36,4 +37,16 @@ public class PuzzleStateTest {
         assertNotSame(originalState, clonedState, "Cloned state should not be the same object as the original state");
         assertEquals(originalState, clonedState, "Cloned state should be equal to the original state");
     }
+
+    @Test
+    public void testSnapshotIsIndependentOfState() {
+        PuzzleState state = new PuzzleState();
+        PuzzleSnapshot snapshot = state.snapshot();
+        state.makeMove(new Move(new Position(0, 1), new Position(1, 2)));
+
+        assertEquals(new PuzzleState(), snapshot.toState(), "The snapshot should keep the board it was taken of");
+        assertEquals(state, state.snapshot().toState(), "Converting back should give an equal state");
+        assertEquals(new Position(1, 2), snapshot.getEmptyPosition(), "The empty square should be kept");
+        assertEquals('K', snapshot.pieceAt(new Position(0, 0)), "Pieces should be kept");
+    }
 }
\ No newline at end of file
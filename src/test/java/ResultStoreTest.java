@@ -0,0 +1,97 @@
+import leaderboard.ResultStore;
+import leaderboard.SolveRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testTopByMovesAndTime() throws IOException {
+        try (ResultStore store = ResultStore.open(tempDir.resolve("results.log"))) {
+            store.append(new SolveRecord("Alice", 15, 9000, "a"));
+            store.append(new SolveRecord("Bob", 11, 30000, "a"));
+            store.append(new SolveRecord("Carol", 13, 5000, "a"));
+            store.append(new SolveRecord("Dave", 11, 1000, "b"));
+
+            List<SolveRecord> byMoves = store.topByMoves("a", 2);
+            assertEquals(2, byMoves.size(), "Only the requested number of results should be returned");
+            assertEquals("Bob", byMoves.get(0).getPlayerName(), "Fewest moves should come first");
+            assertEquals("Carol", byMoves.get(1).getPlayerName(), "Second fewest moves should come second");
+
+            List<SolveRecord> byTime = store.topByTime("a", 10);
+            assertEquals(3, byTime.size(), "Results of other board configurations should not be included");
+            assertEquals("Carol", byTime.get(0).getPlayerName(), "Fastest time should come first");
+        }
+    }
+
+    @Test
+    public void testRecordsSurviveReopen() throws IOException {
+        Path path = tempDir.resolve("results.log");
+        SolveRecord record = new SolveRecord("Alice", 11, 12345, "[[K, B, B],[R, R,  ]]");
+        try (ResultStore store = ResultStore.open(path)) {
+            store.append(record);
+            store.append(new SolveRecord("Bob", 20, 500, "[[K, B, B],[R, R,  ]]"));
+            store.append(new SolveRecord("Alice", 17, 800, "[[K, B, B],[R, R,  ]]"));
+        }
+        try (ResultStore store = ResultStore.open(path)) {
+            assertEquals(3, store.size(), "All records should be loaded when the store is reopened");
+            List<SolveRecord> alice = store.findByPlayer("Alice");
+            assertEquals(2, alice.size(), "Both results of the player should be found");
+            assertEquals(record, alice.get(0), "Records should be read back unchanged");
+        }
+    }
+
+    @Test
+    public void testLogGrowsBeyondInitialMapping() throws IOException {
+        Path path = tempDir.resolve("results.log");
+        String longName = "x".repeat(1000);
+        try (ResultStore store = ResultStore.open(path)) {
+            for (int i = 0; i < 2000; i++) {
+                store.append(new SolveRecord(longName, i, i, "a"));
+            }
+        }
+        try (ResultStore store = ResultStore.open(path)) {
+            assertEquals(2000, store.size(), "All records should be kept after the log grows");
+            assertEquals(0, store.topByMoves("a", 1).get(0).getMoves(), "The best result should be found");
+            assertTrue(store.findByPlayer("nobody").isEmpty(), "Unknown players should have no results");
+        }
+    }
+
+    @Test
+    public void testCorruptRecordLengthIsDropped() throws IOException {
+        Path path = tempDir.resolve("results.log");
+        long secondRecord;
+        try (ResultStore store = ResultStore.open(path)) {
+            store.append(new SolveRecord("Alice", 11, 1000, "a"));
+            secondRecord = 16 + 4 + 16 + "Alice".length() + "a".length();
+            store.append(new SolveRecord("Bob", 12, 2000, "a"));
+            store.append(new SolveRecord("Carol", 13, 3000, "a"));
+        }
+        for (int length : new int[]{-4, 0, Integer.MAX_VALUE}) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(length).flip(), secondRecord);
+            }
+            try (ResultStore store = ResultStore.open(path)) {
+                assertEquals(1, store.size(), "Records before the corrupt one should be kept for length " + length);
+                store.append(new SolveRecord("Dave", 14, 4000, "a"));
+            }
+            try (ResultStore store = ResultStore.open(path)) {
+                assertEquals(List.of("Alice", "Dave"),
+                        store.topByMoves("a", 10).stream().map(SolveRecord::getPlayerName).toList(),
+                        "A new record should replace the dropped ones");
+            }
+        }
+    }
+}
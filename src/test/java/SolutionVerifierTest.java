@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.PackedBoard;
+import solver.Heuristic;
+import solver.IdaStarSolver;
+import tablebase.Mod3Tablebase;
+import tablebase.Mod3TablebaseBuilder;
+import verifier.DistanceOracle;
+import verifier.SolutionVerifier;
+import verifier.VerificationReport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolutionVerifierTest {
+
+    private static final PackedBoard CODEC = PackedBoard.of(2, 3);
+    private static final long START = CODEC.parse("KBB/RR.");
+    private static final long GOAL = CODEC.parse("BB./RRK");
+
+    @TempDir
+    Path tempDir;
+
+    //The line of a solution: the start board, then the squares each move takes a piece from and to.
+    private static String line(long[] states) {
+        StringBuilder line = new StringBuilder(CODEC.format(states[0]));
+        for (int i = 1; i < states.length; i++) {
+            line.append(' ').append(CODEC.emptySquare(states[i])).append('-').append(CODEC.emptySquare(states[i - 1]));
+        }
+        return line.toString();
+    }
+
+    private static String optimalLine() {
+        return line(new IdaStarSolver(CODEC, Heuristic.ZERO).solve(START, GOAL).orElseThrow().getStates());
+    }
+
+    private Path write(List<String> lines) throws IOException {
+        Path file = tempDir.resolve("solutions.txt");
+        Files.write(file, lines);
+        return file;
+    }
+
+    @Test
+    public void testClassifiesLines() throws IOException {
+        String optimal = optimalLine();
+        String[] moves = optimal.split(" ");
+        //Moving the first piece there and back again costs two extra moves.
+        String[] first = moves[1].split("-");
+        String detour = moves[0] + " " + moves[1] + " " + first[1] + "-" + first[0] + optimal.substring(moves[0].length());
+        Path file = write(List.of(
+                optimal,
+                detour,
+                moves[0] + " 0-1",
+                moves[0] + " " + moves[1],
+                "KBB/RR",
+                "",
+                "BB./RRK",
+                "KBX/RR. 1-5"));
+
+        VerificationReport report = new SolutionVerifier(CODEC, GOAL, DistanceOracle.exact(CODEC, GOAL)).verify(file);
+
+        assertEquals(7, report.getTotal(), "Blank lines should not be counted");
+        assertEquals(2, report.getOptimal(), "The optimal solution and the goal itself are optimal");
+        assertEquals(1, report.getSuboptimal(), "The detour is suboptimal");
+        assertEquals(2, report.getExcessMoves(), "The detour makes two extra moves");
+        assertEquals(1, report.getIllegal(), "The king cannot move onto an occupied square");
+        assertEquals(1, report.getUnsolved(), "One move does not solve the puzzle");
+        assertEquals(2, report.getMalformed(), "A short board and an unknown piece are malformed");
+        assertEquals(5, report.getFailures().size(), "Every failure should be described");
+        assertTrue(report.getFailures().get(0).startsWith("line 2: "), "The detour is on line 2");
+        assertTrue(report.getFailures().get(4).startsWith("line 8: "), "Line numbers should count blank lines");
+    }
+
+    @Test
+    public void testTablebaseOracle() throws IOException {
+        Path tablebaseFile = tempDir.resolve("puzzle.tb");
+        new Mod3TablebaseBuilder(CODEC, GOAL).build(tablebaseFile);
+        Mod3Tablebase tablebase = Mod3Tablebase.open(tablebaseFile);
+        String optimal = optimalLine();
+        Path file = write(List.of(optimal, optimal + " 5-2 2-5"));
+
+        VerificationReport report = new SolutionVerifier(CODEC, GOAL, DistanceOracle.of(tablebase)).verify(file);
+
+        assertEquals(1, report.getOptimal(), "The solver's solution is optimal");
+        assertEquals(0, report.getIllegal(), "Moving the king out of the goal and back is legal");
+        assertEquals(1, report.getSuboptimal(), "Leaving the goal and returning is suboptimal");
+        assertEquals(2, report.getExcessMoves(), "Two moves are wasted");
+    }
+
+    @Test
+    public void testLargeFileIsSplitIntoChunks() throws IOException {
+        String optimal = optimalLine();
+        int lines = 400_000;
+        Path file = tempDir.resolve("large.txt");
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            for (int i = 1; i <= lines; i++) {
+                writer.write(i % 100_000 == 0 ? "KBB/RR. 0-1" : optimal);
+                writer.write("\r\n");
+            }
+        }
+        assertTrue(Files.size(file) > 2 * (1 << 23), "The file should span several chunks");
+
+        VerificationReport report = new SolutionVerifier(CODEC, GOAL, DistanceOracle.exact(CODEC, GOAL)).verify(file);
+
+        assertEquals(lines, report.getTotal(), "Every line should be checked exactly once");
+        assertEquals(lines - 4, report.getOptimal(), "All other lines are optimal");
+        assertEquals(List.of("line 100000: ", "line 200000: ", "line 300000: ", "line 400000: "),
+                report.getFailures().stream().map(failure -> failure.substring(0, failure.indexOf(' ', 5) + 1)).toList(),
+                "Line numbers should be counted across chunks");
+    }
+}
@@ -0,0 +1,49 @@
+import analysis.LayerListener;
+import analysis.StateSpaceAnalyzer;
+import analysis.StateSpaceReport;
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+import puzzle.PuzzleState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateSpaceAnalyzerTest {
+
+    private final PackedBoard codec = PackedBoard.of(2, 3);
+    private final long goal = codec.parse("BB./RRK");
+
+    @Test
+    public void testStandardPuzzle() {
+        StateSpaceReport report = new StateSpaceAnalyzer(codec, goal)
+                .analyze(codec.pack(new PuzzleState()), 100, LayerListener.NONE);
+
+        assertEquals(180, report.getArrangements(), "6!/(2!2!) arrangements of K, B, B, R, R");
+        assertEquals(108, report.getReachable(), "108 boards can reach the goal");
+        assertEquals(11, report.getStartDistance(), "The initial board is 11 moves from the goal");
+        assertEquals(13, report.getMaxDistance(), "The hardest boards are 13 moves from the goal");
+        assertTrue(report.isDiameterExact(), "A small graph should get an exact diameter");
+        assertEquals(14, report.getDiameter(), "Two boards are 14 moves apart, more than any board from the goal");
+        assertEquals(report.getReachable(), Arrays.stream(report.getBranchingCounts()).sum(),
+                "Every reachable board should be in the branching histogram");
+        assertEquals(report.getDistanceCounts()[13], report.getHardestStarts().length,
+                "All hardest boards should be reported");
+        assertEquals(11, report.getComponents(), "The 72 other arrangements form 10 more components");
+        assertEquals(108, report.getLargestComponent(), "The goal's component is the largest");
+    }
+
+    @Test
+    public void testLayersAreStreamed() {
+        List<long[]> layers = new ArrayList<>();
+        StateSpaceReport report = new StateSpaceAnalyzer(codec, goal).analyze(goal, 0,
+                (distance, boards, reached) -> layers.add(new long[]{distance, boards, reached}));
+
+        assertEquals(report.getDistanceCounts().length, layers.size(), "Every layer should be reported");
+        assertEquals(report.getReachable(), layers.get(layers.size() - 1)[2], "The last report covers all boards");
+        assertEquals(0, report.getStartDistance(), "The goal is 0 moves from itself");
+        assertEquals(0, report.getHardestStarts().length, "The number of hardest boards should be limited");
+    }
+}
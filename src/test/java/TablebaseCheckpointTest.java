@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.PackedBoard;
+import tablebase.Mod3TablebaseBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseCheckpointTest {
+
+    private static final PackedBoard CODEC = PackedBoard.of(2, 3);
+    private static final long GOAL = CODEC.parse("BB./RRK");
+
+    @TempDir
+    Path tempDir;
+
+    private Path checkpoints;
+    private byte[] expected;
+
+    @BeforeEach
+    public void buildWithoutCheckpoints() throws IOException {
+        checkpoints = tempDir.resolve("checkpoints");
+        Path file = tempDir.resolve("expected.tb");
+        new Mod3TablebaseBuilder(CODEC, GOAL).build(file);
+        expected = Files.readAllBytes(file);
+    }
+
+    private byte[] buildWithCheckpoints() throws IOException {
+        Path file = tempDir.resolve("actual.tb");
+        new Mod3TablebaseBuilder(CODEC, GOAL).build(file, checkpoints);
+        return Files.readAllBytes(file);
+    }
+
+    private Path layerFile(int distance) {
+        return checkpoints.resolve(String.format("layer-%04d.bin", distance));
+    }
+
+    @Test
+    public void testCheckpointsDoNotChangeTheTablebase() throws IOException {
+        assertArrayEquals(expected, buildWithCheckpoints(), "Checkpointing should not change the result");
+        //The goal is 13 moves from the farthest board, so layers 0 to 13 are saved.
+        assertTrue(Files.exists(checkpoints.resolve("manifest.bin")), "The manifest should be written");
+        assertTrue(Files.exists(checkpoints.resolve("layer-0013.bin")), "The last layer should be saved");
+        assertFalse(Files.exists(checkpoints.resolve("layer-0014.bin")), "The empty layer should not be saved");
+        assertArrayEquals(expected, buildWithCheckpoints(), "Resuming a complete search gives the same result");
+    }
+
+    @Test
+    public void testResumesBeforeDamagedLayer() throws IOException {
+        buildWithCheckpoints();
+        Path layer = checkpoints.resolve("layer-0006.bin");
+        byte[] saved = Files.readAllBytes(layer);
+        byte[] damaged = saved.clone();
+        damaged[0] ^= 1;
+        Files.write(layer, damaged);
+        Files.delete(checkpoints.resolve("layer-0009.bin"));
+        //Any layer written again gets the current time, so the intact layers are dated back to tell them apart.
+        FileTime past = FileTime.fromMillis(0);
+        for (int distance = 0; distance <= 6; distance++) {
+            Files.setLastModifiedTime(layerFile(distance), past);
+        }
+
+        assertArrayEquals(expected, buildWithCheckpoints(), "Resuming from layer 5 should give the same result");
+        for (int distance = 0; distance <= 5; distance++) {
+            assertEquals(past, Files.getLastModifiedTime(layerFile(distance)),
+                    "Layer " + distance + " should be read back, not searched again");
+        }
+        assertNotEquals(past, Files.getLastModifiedTime(layer), "The damaged layer should be searched again");
+        assertArrayEquals(saved, Files.readAllBytes(layer), "The damaged layer should be written again");
+        assertTrue(Files.exists(checkpoints.resolve("layer-0009.bin")), "Later layers should be written again");
+    }
+
+    @Test
+    public void testStartsOverWithDamagedManifest() throws IOException {
+        buildWithCheckpoints();
+        Path manifest = checkpoints.resolve("manifest.bin");
+        byte[] damaged = Files.readAllBytes(manifest);
+        damaged[damaged.length / 2] ^= 1;
+        Files.write(manifest, damaged);
+
+        assertArrayEquals(expected, buildWithCheckpoints(), "A damaged manifest should be ignored");
+        assertFalse(Files.exists(checkpoints.resolve("manifest.bin.tmp")), "The manifest should be replaced");
+    }
+
+    @Test
+    public void testRejectsCheckpointsOfAnotherSearch() throws IOException {
+        buildWithCheckpoints();
+        Mod3TablebaseBuilder other = new Mod3TablebaseBuilder(CODEC, CODEC.parse("KBB/RR."));
+        assertThrows(IOException.class, () -> other.build(tempDir.resolve("other.tb"), checkpoints),
+                "Checkpoints of another goal must not be used");
+    }
+}
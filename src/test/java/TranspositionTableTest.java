@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+import puzzle.PackedBoard;
+import solver.Heuristic;
+import solver.IdaStarSolver;
+import solver.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals((1 << 20) / 16, table.capacity(), "One megabyte holds 65536 entries of 16 bytes");
+        assertEquals(TranspositionTable.NOT_FOUND, table.probe(42), "An empty table finds nothing");
+        assertEquals(TranspositionTable.NOT_FOUND, table.probe(0), "An empty slot must not match key 0");
+
+        table.store(42, 3, 7);
+        assertEquals(7, table.probe(42), "A stored value should be found");
+        table.store(42, 1, 9);
+        assertEquals(9, table.probe(42), "An entry for the same key should be replaced");
+        table.store(43, 0, 100_000);
+        assertEquals(TranspositionTable.MAX_VALUE, table.probe(43), "Large values should be capped");
+
+        table.clear();
+        assertEquals(TranspositionTable.NOT_FOUND, table.probe(42), "A cleared table finds nothing");
+    }
+
+    @Test
+    public void testDeepEntriesAreKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        //Keys that differ by a multiple of 2^48 fall into the same bucket.
+        long stride = 1L << 48;
+        long deep = 5;
+        table.store(deep, 10, 1);
+        for (long key = deep + stride; key != deep + 100 * stride; key += stride) {
+            table.store(key, 2, 2);
+        }
+        assertEquals(1, table.probe(deep), "Shallower entries should not evict a deeper one");
+    }
+
+    @Test
+    public void testRacingWritersNeverCorruptEntries() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicReference<String> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000_000; i++) {
+                    //Few keys and many threads, so that writes to the same slots overlap.
+                    long key = (i * 31L + seed) % 200_000;
+                    table.store(key, (int) (key % 50), (int) (key % 1000));
+                    int value = table.probe((key * 7) % 200_000);
+                    if (value != TranspositionTable.NOT_FOUND && value != (key * 7) % 200_000 % 1000) {
+                        error.set("Corrupt value " + value + " for key " + (key * 7) % 200_000);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get(), "Every value found should belong to its key");
+    }
+
+    @Test
+    public void testIdaStarWithTableIsOptimalAndSavesWork() {
+        PackedBoard codec = PackedBoard.of(2, 3);
+        long start = codec.parse("KBB/RR.");
+        long goal = codec.parse("BB./RRK");
+        IdaStarSolver plain = new IdaStarSolver(codec, Heuristic.ZERO);
+        IdaStarSolver cached = new IdaStarSolver(codec, Heuristic.ZERO, new TranspositionTable(1));
+
+        assertEquals(11, plain.solve(start, goal).orElseThrow().length(), "The puzzle is solved in 11 moves");
+        assertEquals(11, cached.solve(start, goal).orElseThrow().length(), "The table must not break optimality");
+        assertTrue(cached.getExpandedNodes() * 2 < plain.getExpandedNodes(),
+                "The table should avoid repeated work: "
+                        + cached.getExpandedNodes() + " vs " + plain.getExpandedNodes());
+    }
+}
@@ -0,0 +1,108 @@
+package puzzle;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link BatchExpander} that expands as many boards at once as fit in a vector register, using the
+ * incubating Vector API.
+ * <p>
+ * For every source square, the legality of moving its piece to the empty square is computed for all lanes
+ * together: the move tables of {@link PackedBoard} are gathered by the empty square of each lane, and a move is
+ * legal if the piece type is allowed and the squares in between are all empty. Boards that do not fill a whole
+ * vector are handled by {@link ScalarBatchExpander}.
+ * <p>
+ * Only compiled by the {@code vector} Maven profile and requires {@code --add-modules jdk.incubator.vector}; use
+ * {@link BatchExpander#create(PackedBoard)} to fall back to the scalar implementation when either is missing. The empty squares of each vector go through scratch
+ * arrays of the instance, so expanding allocates nothing, and an instance must not be used by several threads at
+ * once.
+ */
+public class VectorBatchExpander implements BatchExpander {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private final int squares;
+    private final long[][] types; //types[from][to]: bit set of the piece codes that may move from -> to
+    private final long[][] between; //between[from][to]: mask of the squares that must be empty
+    private final ScalarBatchExpander tail;
+    private final long[] emptyLanes = new long[SPECIES.length()];
+    private final int[] empties = new int[SPECIES.length()]; //The gather index map of the move tables
+
+    /**
+     * Constructs a {@code VectorBatchExpander} for a board size.
+     *
+     * @param codec the codec of the boards
+     */
+    public VectorBatchExpander(PackedBoard codec) {
+        squares = codec.squares();
+        types = new long[squares][squares];
+        between = new long[squares][squares];
+        for (int from = 0; from < squares; from++) {
+            for (int to = 0; to < squares; to++) {
+                types[from][to] = codec.moveTypes(from, to);
+                between[from][to] = codec.betweenMask(from, to);
+            }
+        }
+        tail = new ScalarBatchExpander(codec);
+    }
+
+    /**
+     * Computes the successors of a batch of boards.
+     *
+     * @param states     the packed boards, each with exactly one empty square
+     * @param count      the number of boards to expand, starting at index 0
+     * @param successors the array to write to; must have room for {@code squares() * count} boards
+     */
+    @Override
+    public void expand(long[] states, int count, long[] successors) {
+        int bound = SPECIES.loopBound(count);
+        LongVector one = LongVector.broadcast(SPECIES, 1L);
+        LongVector noMove = LongVector.broadcast(SPECIES, NO_MOVE);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector boards = LongVector.fromArray(SPECIES, states, i);
+
+            LongVector empty = LongVector.zero(SPECIES);
+            for (int square = 0; square < squares; square++) {
+                VectorMask<Long> isEmpty = boards.lanewise(VectorOperators.LSHR, 2 * square).and(3L).eq(0L);
+                empty = empty.blend(square, isEmpty);
+            }
+            empty.intoArray(emptyLanes, 0);
+            for (int lane = 0; lane < empties.length; lane++) {
+                empties[lane] = (int) emptyLanes[lane];
+            }
+            LongVector emptyShift = empty.lanewise(VectorOperators.LSHL, 1);
+
+            for (int from = 0; from < squares; from++) {
+                LongVector codes = boards.lanewise(VectorOperators.LSHR, 2 * from).and(3L);
+                LongVector allowed = LongVector.fromArray(SPECIES, types[from], 0, empties, 0);
+                LongVector path = LongVector.fromArray(SPECIES, between[from], 0, empties, 0);
+                //The empty code 0 is never an allowed type, so empty source squares are rejected here too.
+                VectorMask<Long> legal = allowed.and(one.lanewise(VectorOperators.LSHL, codes))
+                        .compare(VectorOperators.NE, 0L)
+                        .and(boards.and(path).eq(0L));
+                LongVector moved = boards.and(~(3L << (2 * from))).or(codes.lanewise(VectorOperators.LSHL, emptyShift));
+                noMove.blend(moved, legal).intoArray(successors, from * count + i);
+            }
+        }
+        tail.expand(states, bound, count, successors);
+    }
+
+    /**
+     * Checks which boards of a batch are equal to the goal.
+     *
+     * @param states  the packed boards
+     * @param count   the number of boards to check, starting at index 0
+     * @param goal    the packed goal board
+     * @param matches the array to write the results to
+     */
+    @Override
+    public void matchGoal(long[] states, int count, long goal, boolean[] matches) {
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, states, i).eq(goal).intoArray(matches, i);
+        }
+        tail.matchGoal(states, bound, count, goal, matches);
+    }
+}